@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    application
 }
 
 group = "cicd"
@@ -24,6 +25,54 @@ dependencies {
 
 }
 
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+application {
+    mainClass.set("at.hagenberg.fh.wc.Main")
+}
+
+// OffHeapRecording uses the Foreign Function & Memory API, which is a preview feature in Java 21. It is compiled in a
+// source set of its own and only looked up by name, so everything else compiles and runs without --enable-preview
+val preview by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+tasks.named<JavaCompile>(preview.compileJavaTaskName) {
+    options.compilerArgs.add("--enable-preview")
+}
+
+tasks.jar {
+    from(preview.output)
+}
+
 tasks.test {
     useJUnitPlatform()
+}
+
+// AppCDS only maps classes that were loaded from jars, so the archive is trained and used with the packaged jar
+val cdsArchive = layout.buildDirectory.file("cds/wc-assignment-01.jsa")
+val jarClasspath = files(tasks.jar) + configurations.runtimeClasspath.get()
+
+val createCdsArchive by tasks.registering(JavaExec::class) {
+    group = "build"
+    description = "Creates an application class-data-sharing archive from a training run on a small recording."
+    classpath = jarClasspath
+    mainClass.set(application.mainClass)
+    args("src/main/resources/data/data1.csv")
+    jvmArgs("-XX:ArchiveClassesAtExit=${cdsArchive.get().asFile}")
+    outputs.file(cdsArchive)
+}
+
+tasks.assemble {
+    dependsOn(createCdsArchive)
+}
+
+tasks.named<JavaExec>("run") {
+    dependsOn(createCdsArchive)
+    classpath = jarClasspath
+    jvmArgs("-XX:SharedArchiveFile=${cdsArchive.get().asFile}", "-Xshare:auto")
 }
\ No newline at end of file
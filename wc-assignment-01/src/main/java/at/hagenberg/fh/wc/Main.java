@@ -1,157 +1,156 @@
 package at.hagenberg.fh.wc;
 
-import at.hagenberg.fh.wc.helper.PolynomialHelper;
+import at.hagenberg.fh.wc.cache.ResultCache;
+import at.hagenberg.fh.wc.detector.StepCounter;
+import at.hagenberg.fh.wc.features.WindowFeatures;
+import at.hagenberg.fh.wc.helper.HashHelper;
+import at.hagenberg.fh.wc.io.HeapRecording;
+import at.hagenberg.fh.wc.io.Recordings;
+import at.hagenberg.fh.wc.io.SampleSource;
+import at.hagenberg.fh.wc.metrics.Stage;
+import at.hagenberg.fh.wc.metrics.StepDetectorMetrics;
 import at.hagenberg.fh.wc.model.SensorData;
-import org.apache.commons.math3.complex.Complex;
-import org.apache.commons.math3.transform.DftNormalization;
-import org.apache.commons.math3.transform.FastFourierTransformer;
-import org.apache.commons.math3.transform.TransformType;
+import at.hagenberg.fh.wc.model.StepCountResult;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import at.hagenberg.fh.wc.model.StepEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Objects;
 
 public class Main {
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
-    private static final ClassLoader classLoader = Main.class.getClassLoader();
 
+    /**
+     * Counts the steps in a gyroscope recording. Results are cached when the system property {@code wc.cache.dir}
+     * is set, see {@link #openCache()}. With {@code wc.features.file} the intermediates of every window are written to
+     * that file for {@link at.hagenberg.fh.wc.features.FeatureReplay}, bypassing the cache.
+     *
+     * @param args Optional path of the CSV or binary ({@code .bin}) recording to process, defaults to the bundled
+     *             {@code data/data2.csv}
+     */
     public static void main(String[] args) {
-        var filename = "data/data2.csv";
+        var filename = args.length > 0 ? args[0] : "data/data2.csv";
         LOGGER.info("Loading data from {}", filename);
 
-        File file = null;
-        try {
-            file = new File(Objects.requireNonNull(classLoader.getResource(filename)).toURI());
-        } catch (URISyntaxException e) {
-            LOGGER.error(e.getMessage());
-        }
-
-        var samplingFrequency = 100f;
-        var windowSize = 512;
-        var slidingWindowDuration = 1.25f;
-        var resolution = samplingFrequency / windowSize;
-        var slidingWindowLength = slidingWindowDuration * samplingFrequency;
-        var fft = new FastFourierTransformer(DftNormalization.STANDARD);
-
-        var values = readCSV(file);
-        double stepCount = 0;
-
-        for (int i = 0; (i + windowSize) < values.size(); i += (int) slidingWindowLength) {
-            var window = values.subList(i, i + windowSize);
-            var idx = mostSensitiveAxisIndex(window, windowSize);
-
-            double[] axisData = new double[windowSize];
-            for (int j = 0; j < windowSize; j++) {
-                switch (idx) {
-                    case 0 -> axisData[j] = window.get(j).wx();  // wx axis
-                    case 1 -> axisData[j] = window.get(j).wy();  // wy axis
-                    case 2 -> axisData[j] = window.get(j).wz();  // wz axis
-                    default -> LOGGER.error("Unexpected value {}", idx);
+        var config = StepDetectorConfig.DEFAULT;
+        var featuresFile = System.getProperty("wc.features.file");
+        var features = featuresFile == null ? null : new WindowFeatures.Builder(config);
+        var cache = features == null ? openCache() : null;
+        var contentHash = 0L;
+        if (cache != null) {
+            try {
+                contentHash = contentHash(filename);
+                var cached = cache.get(contentHash, config.hash());
+                if (cached.isPresent()) {
+                    LOGGER.info("{} steps were made (cached).", cached.get().stepCount());
+                    return;
                 }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Could not hash {}, bypassing the cache: {}", filename, e.getMessage());
+                cache = null;
             }
+        }
 
-            var fftResult = fft.transform(axisData, TransformType.FORWARD);
-            var magnitudes = magnitudesFromFFT(fftResult);
-            var coefficients = PolynomialHelper.fit(magnitudes);
-
-            // Get the first two (w0) and next five (wc) components
-            var w0 = (magnitudes[0] + magnitudes[1]) / 2;
-            var wc = 0d;
-            for (int j = 2; j < 7; j++) {
-                wc += magnitudes[j];
-            }
-            wc /= 5;
-
-            // Step detection logic
-            if (wc > w0 && wc > 10) {
-                double boundedMinimizationMax = PolynomialHelper.goldenSectionSearch(coefficients, 1, 5, 1e-5);
-                double fw = resolution * (boundedMinimizationMax + 1);
-                double c = slidingWindowDuration * fw;
-
-                var prevStepCount = stepCount;
-                stepCount += c;
-                LOGGER.info("Increase step count from {} to {} by {}", prevStepCount, stepCount, c);
+        var metrics = StepDetectorMetrics.getInstance();
+        StepCountResult result;
+        // Binary recordings are mapped instead of being read onto the heap where the JVM allows it
+        var parseStart = metrics.start();
+        try (var samples = Recordings.open(filename)) {
+            metrics.record(Stage.PARSE, parseStart);
+            result = countSteps(samples, config, features);
+        } catch (IOException e) {
+            LOGGER.error("{}", e.getMessage());
+            return;
+        }
+        if (features != null) {
+            try {
+                features.build().write(Path.of(featuresFile));
+            } catch (IOException e) {
+                LOGGER.error("Could not write the features to {}: {}", featuresFile, e.getMessage());
             }
         }
+        if (cache != null) {
+            var events = Boolean.getBoolean("wc.cache.events") ? result.events() : List.<StepEvent>of();
+            cache.put(contentHash, config.hash(), new StepCountResult(result.stepCount(), events));
+        }
 
-        LOGGER.info("{} steps were made.", stepCount);
+        LOGGER.info("{} steps were made.", result.stepCount());
+        LOGGER.debug("Processed {} windows, gate pass rate {}, p99 window latency {} ns",
+                metrics.getWindowCount(), metrics.getGatePassRate(), metrics.getWindowLatencyP99Nanos());
     }
 
-    private static double[] magnitudesFromFFT(Complex[] fftResult) {
-        var magnitudes = new double[fftResult.length];
-        for (int j = 0; j < fftResult.length; j++) {
-            magnitudes[j] = 2 * fftResult[j].abs();
-        }
+    /**
+     * Counts the steps in a recording with the algorithm by X. Kang et al.
+     *
+     * @param values The samples of the recording
+     * @param config The parameters of the detection
+     * @return The step count and the windows that were counted as walking
+     */
+    public static StepCountResult countSteps(List<SensorData> values, StepDetectorConfig config) {
+        return countSteps(new HeapRecording(values), config, null);
+    }
 
-        return magnitudes;
+    /**
+     * Counts the steps in a recording held anywhere, e.g. off-heap, with the same windows as
+     * {@link #countSteps(List, StepDetectorConfig)}
+     *
+     * @param samples The recording
+     * @param config  The parameters of the detection
+     * @return The step count and the windows that were counted as walking
+     */
+    public static StepCountResult countSteps(SampleSource samples, StepDetectorConfig config) {
+        return countSteps(samples, config, null);
     }
 
-    private static int mostSensitiveAxisIndex(List<SensorData> window, int windowSize) {
-        double[] meanAbs = new double[3];
-        for (SensorData entry : window) {
-            meanAbs[0] += Math.abs(entry.wx());
-            meanAbs[1] += Math.abs(entry.wy());
-            meanAbs[2] += Math.abs(entry.wz());
-        }
-        for (int j = 0; j < 3; j++) {
-            meanAbs[j] /= windowSize;
-        }
+    private static StepCountResult countSteps(SampleSource samples, StepDetectorConfig config,
+                                              WindowFeatures.Builder features) {
+        var result = StepCounter.countSteps(samples, config, features == null ? null : features::add);
 
-        // Find the axis with the maximum mean absolute value
-        int idx = 0;
-        double maxMeanAbs = meanAbs[0];
-        for (int j = 1; j < 3; j++) {
-            if (meanAbs[j] > maxMeanAbs) {
-                idx = j;
-                maxMeanAbs = meanAbs[j];
-            }
+        var prevStepCount = 0d;
+        for (StepEvent event : result.events()) {
+            LOGGER.info("Increase step count from {} to {} by {}", prevStepCount, event.stepCount(), event.steps());
+            prevStepCount = event.stepCount();
         }
 
-        return idx;
+        return result;
     }
 
     /**
-     * Reads in data from a CSV file with the sperator 's'
+     * Opens the result cache configured by the system properties {@code wc.cache.dir} and {@code wc.cache.maxBytes}
+     * (default 64 MiB). With {@code wc.cache.events=true} the counted windows are cached along with the step count.
      *
-     * @param file The file defined in the code
-     * @return The sensor data
+     * @return The cache, or null if caching is disabled or the cache directory cannot be created
      */
-    private static List<SensorData> readCSV(File file) {
-        String line;
-        String delimiter = ",";
-        List<SensorData> data = new ArrayList<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            // Skip the header line (time, wx, wy, wz)
-            var firstLineSkipped = false;
-
-            while ((line = br.readLine()) != null) {
-                if (!firstLineSkipped) {
-                    firstLineSkipped = true;
-                    continue;
-                }
-                String[] values = line.split(delimiter);
-
-                double time = Double.parseDouble(values[0]);
-                double wx = Double.parseDouble(values[1]);
-                double wy = Double.parseDouble(values[2]);
-                double wz = Double.parseDouble(values[3]);
+    private static ResultCache openCache() {
+        var directory = System.getProperty("wc.cache.dir");
+        if (directory == null) {
+            return null;
+        }
 
-                SensorData sensorData = new SensorData(time, wx, wy, wz);
-                data.add(sensorData);
-            }
+        try {
+            return new ResultCache(Path.of(directory), Long.getLong("wc.cache.maxBytes", 64L << 20));
         } catch (IOException e) {
-            LOGGER.error("{}", e.getMessage());
+            LOGGER.warn("Could not open cache {}: {}", directory, e.getMessage());
+            return null;
         }
+    }
 
-        return data;
+    /**
+     * Hashes the bytes of a file, or of the resource with that name if there is no such file
+     */
+    private static long contentHash(String filename) throws IOException {
+        var path = Path.of(filename);
+        if (Files.exists(path)) {
+            return HashHelper.hash(path);
+        }
+
+        try (var stream = Recordings.openStream(filename)) {
+            return HashHelper.hash(ByteBuffer.wrap(stream.readAllBytes()));
+        }
     }
-}
\ No newline at end of file
+}
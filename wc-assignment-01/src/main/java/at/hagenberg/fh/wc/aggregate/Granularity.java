@@ -0,0 +1,40 @@
+package at.hagenberg.fh.wc.aggregate;
+
+/**
+ * The time buckets steps are summed up in, aligned to UTC. Weeks start on Monday.
+ */
+public enum Granularity {
+    HOURLY,
+    DAILY,
+    WEEKLY;
+
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long SECONDS_PER_DAY = 24 * SECONDS_PER_HOUR;
+    // 1970-01-01 was a Thursday, so the Monday of that week was three days before
+    private static final long EPOCH_DAY_OF_WEEK = 3;
+
+    /**
+     * @param epochSeconds A point in time in seconds since the epoch
+     * @return The number of the bucket the point in time falls into
+     */
+    public int bucket(double epochSeconds) {
+        var seconds = (long) Math.floor(epochSeconds);
+        return (int) switch (this) {
+            case HOURLY -> Math.floorDiv(seconds, SECONDS_PER_HOUR);
+            case DAILY -> Math.floorDiv(seconds, SECONDS_PER_DAY);
+            case WEEKLY -> Math.floorDiv(Math.floorDiv(seconds, SECONDS_PER_DAY) + EPOCH_DAY_OF_WEEK, 7);
+        };
+    }
+
+    /**
+     * @param bucket The number of a bucket
+     * @return The start of the bucket in seconds since the epoch
+     */
+    public long start(int bucket) {
+        return switch (this) {
+            case HOURLY -> bucket * SECONDS_PER_HOUR;
+            case DAILY -> bucket * SECONDS_PER_DAY;
+            case WEEKLY -> (bucket * 7L - EPOCH_DAY_OF_WEEK) * SECONDS_PER_DAY;
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package at.hagenberg.fh.wc.aggregate;
+
+import at.hagenberg.fh.wc.detector.StepCounter;
+import at.hagenberg.fh.wc.io.BinaryRecording;
+import at.hagenberg.fh.wc.io.Recordings;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import at.hagenberg.fh.wc.model.StepEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Step totals per user and hour, day or week over an archive of recordings. The archive holds one directory per user
+ * with the recordings of that user, each named after the time its first sample was taken in seconds since the epoch,
+ * e.g. {@code archive/alice/1718870400.csv}.
+ * <p>
+ * Every recording is analyzed on its own like in {@code Main}, and the steps of each window that counts as walking are
+ * added to the hour its last sample falls into. The recordings are processed in parallel on the common fork-join pool,
+ * each thread collecting hourly {@link StepTotals} that are merged at the end and rolled up into the requested
+ * granularity.
+ * <p>
+ * Usage: {@code StepRollup [archive] [hourly|daily|weekly] [output]}, by default the daily totals of {@code archive}
+ * are written to {@code rollup-daily.csv}.
+ */
+public class StepRollup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepRollup.class);
+
+    private final List<String> users;
+    private final StepDetectorConfig config;
+
+    /**
+     * @param users  The names of the users, the index of a name in this list is the user index of the totals
+     * @param config The parameters of the detection
+     */
+    public StepRollup(List<String> users, StepDetectorConfig config) {
+        this.users = users;
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var archive = Path.of(args.length > 0 ? args[0] : "archive");
+        var granularity = Granularity.valueOf((args.length > 1 ? args[1] : "daily").toUpperCase(Locale.ROOT));
+        var granularityName = granularity.name().toLowerCase(Locale.ROOT);
+        var output = Path.of(args.length > 2 ? args[2] : "rollup-" + granularityName + ".csv");
+
+        List<Path> userDirectories;
+        try (Stream<Path> paths = Files.list(archive)) {
+            userDirectories = paths.filter(Files::isDirectory).sorted().toList();
+        }
+        var users = userDirectories.stream().map(directory -> directory.getFileName().toString()).toList();
+        var rollup = new StepRollup(users, StepDetectorConfig.DEFAULT);
+
+        var start = System.nanoTime();
+        var totals = rollup.aggregate(userDirectories).rollUp(Granularity.HOURLY, granularity);
+        LOGGER.info("Aggregated {} users into {} {} totals in {} s", users.size(), totals.size(), granularityName,
+                (System.nanoTime() - start) / 1e9);
+
+        rollup.write(totals, granularity, output);
+        LOGGER.info("Wrote {}", output);
+    }
+
+    /**
+     * Counts the steps of all recordings of the given users in parallel
+     *
+     * @param userDirectories The directory of each user, in the order of the user names
+     * @return The hourly totals
+     * @throws IOException If a directory cannot be listed
+     */
+    public StepTotals aggregate(List<Path> userDirectories) throws IOException {
+        record Recording(int user, Path file) {
+        }
+
+        var recordings = new ArrayList<Recording>();
+        for (int user = 0; user < userDirectories.size(); user++) {
+            try (Stream<Path> files = Files.list(userDirectories.get(user))) {
+                var index = user;
+                files.filter(StepRollup::isRecording).forEach(file -> recordings.add(new Recording(index, file)));
+            }
+        }
+        LOGGER.info("Found {} recordings", recordings.size());
+
+        return recordings.parallelStream().collect(StepTotals::new,
+                (totals, recording) -> add(totals, recording.user(), recording.file()), StepTotals::merge);
+    }
+
+    private static boolean isRecording(Path file) {
+        var name = file.getFileName().toString();
+        return Files.isRegularFile(file) && (name.endsWith(".csv") || name.endsWith(BinaryRecording.EXTENSION));
+    }
+
+    /**
+     * Adds the steps of one recording to the hourly totals of its user
+     */
+    private void add(StepTotals totals, int user, Path file) {
+        var name = file.getFileName().toString();
+        double startSeconds;
+        try {
+            startSeconds = Double.parseDouble(name.substring(0, name.lastIndexOf('.')));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Skipping {}, its name is not a start time: {}", file, e.getMessage());
+            return;
+        }
+
+        // The same windows as Main.countSteps, without logging every one of them
+        List<StepEvent> events;
+        try (var samples = Recordings.open(file.toString())) {
+            events = StepCounter.countSteps(samples, config, null).events();
+        } catch (IOException e) {
+            LOGGER.warn("Skipping {}: {}", file, e.getMessage());
+            return;
+        }
+        for (StepEvent event : events) {
+            totals.add(user, Granularity.HOURLY.bucket(startSeconds + event.time()), event.steps());
+        }
+    }
+
+    /**
+     * Writes totals as CSV with the columns user, bucket start (ISO-8601, UTC) and steps
+     */
+    public void write(StepTotals totals, Granularity granularity, Path output) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            writer.write("user,start,steps");
+            writer.newLine();
+            for (long key : totals.sortedKeys()) {
+                var start = Instant.ofEpochSecond(granularity.start(StepTotals.bucket(key)));
+                writer.write(users.get(StepTotals.user(key)) + "," + start + "," + totals.get(key));
+                writer.newLine();
+            }
+        }
+    }
+}
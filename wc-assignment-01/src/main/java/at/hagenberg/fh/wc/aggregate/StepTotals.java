@@ -0,0 +1,174 @@
+package at.hagenberg.fh.wc.aggregate;
+
+import at.hagenberg.fh.wc.helper.HashHelper;
+
+import java.util.Arrays;
+
+/**
+ * Step totals per user and time bucket, kept in an open-addressing hash map on primitive arrays so that adding a window's
+ * steps neither boxes the key nor the count. Totals are partial results: two instances built from different recordings
+ * or threads are combined with {@link #merge(StepTotals)}, and totals of a fine granularity can be rolled up into a
+ * coarser one with {@link #rollUp(Granularity, Granularity)}.
+ * <p>
+ * Not thread-safe, use one instance per thread and merge them.
+ */
+public class StepTotals {
+    // Keys are never negative, as user indices are not
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private double[] steps;
+    private int mask;
+    private int size;
+
+    public StepTotals() {
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        steps = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    /**
+     * @param user   The index of the user, not negative
+     * @param bucket The number of the time bucket
+     * @return The key of the user's bucket
+     */
+    public static long key(int user, int bucket) {
+        if (user < 0) {
+            throw new IllegalArgumentException("User index must not be negative");
+        }
+        return ((long) user << 32) | (bucket & 0xFFFF_FFFFL);
+    }
+
+    public static int user(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int bucket(long key) {
+        return (int) key;
+    }
+
+    private int home(long key) {
+        return (int) HashHelper.finish(key, 0) & mask;
+    }
+
+    /**
+     * Adds steps to the total of a user's bucket
+     */
+    public void add(int user, int bucket, double count) {
+        add(key(user, bucket), count);
+    }
+
+    private void add(long key, double count) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        var i = home(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            size++;
+        }
+        steps[i] += count;
+    }
+
+    /**
+     * @return The total of a user's bucket, 0 if no steps were added to it
+     */
+    public double get(int user, int bucket) {
+        var key = key(user, bucket);
+        for (int i = home(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return steps[i];
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Adds all totals of another instance to this one
+     *
+     * @param other The totals to add, left unchanged
+     */
+    public void merge(StepTotals other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.steps[i]);
+            }
+        }
+    }
+
+    /**
+     * Sums the buckets up into larger ones
+     *
+     * @param from The granularity of these totals
+     * @param to   The granularity to roll up into, must not be finer than {@code from}
+     * @return New totals of the coarser granularity
+     */
+    public StepTotals rollUp(Granularity from, Granularity to) {
+        if (to.compareTo(from) < 0) {
+            throw new IllegalArgumentException("Cannot roll " + from + " totals up into " + to + " totals");
+        }
+
+        var result = new StepTotals();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                var bucket = to.bucket(from.start(bucket(keys[i])));
+                result.add(user(keys[i]), bucket, steps[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The keys of all non-empty buckets in ascending order, i.e. by user and then by time
+     */
+    public long[] sortedKeys() {
+        var sorted = new long[size];
+        var n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                sorted[n++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+
+        return sorted;
+    }
+
+    /**
+     * @param key A key returned by {@link #sortedKeys()}
+     * @return The total of that bucket
+     */
+    public double get(long key) {
+        return get(user(key), bucket(key));
+    }
+
+    /**
+     * @return The number of non-empty buckets
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldSteps = steps;
+        allocate(keys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldSteps[i]);
+            }
+        }
+    }
+}
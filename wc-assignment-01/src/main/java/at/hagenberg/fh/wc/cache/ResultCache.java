@@ -0,0 +1,147 @@
+package at.hagenberg.fh.wc.cache;
+
+import at.hagenberg.fh.wc.model.StepCountResult;
+import at.hagenberg.fh.wc.model.StepEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of step counts, keyed by the hash of the recording's bytes and the hash of the detector
+ * configuration. Every entry is a small binary file in the cache directory. The modification time of an entry is
+ * refreshed on every hit, so that the least recently used entries can be evicted once the directory grows beyond its
+ * size limit.
+ */
+public class ResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultCache.class);
+    private static final String SUFFIX = ".steps";
+    private static final int MAGIC = 0x57435243; // "WCRC"
+    private static final int VERSION = 1;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory The directory the entries are stored in, created if it does not exist
+     * @param maxBytes  The size the entries may occupy before the least recently used ones are evicted
+     * @throws IOException If the directory cannot be created
+     */
+    public ResultCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    private Path entryPath(long contentHash, long configHash) {
+        return directory.resolve("%016x-%016x%s".formatted(contentHash, configHash, SUFFIX));
+    }
+
+    /**
+     * Looks up the result of a previous run
+     *
+     * @param contentHash The hash of the recording's bytes
+     * @param configHash  The hash of the detector configuration
+     * @return The cached result, or empty if there is none or it cannot be read
+     */
+    public Optional<StepCountResult> get(long contentHash, long configHash) {
+        var path = entryPath(contentHash, configHash);
+        try {
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != contentHash || buffer.getLong() != configHash) {
+                LOGGER.warn("Ignoring invalid cache entry {}", path);
+                return Optional.empty();
+            }
+
+            var stepCount = buffer.getDouble();
+            var events = new ArrayList<StepEvent>(buffer.getInt());
+            while (buffer.hasRemaining()) {
+                events.add(new StepEvent(buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+            }
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+
+            return Optional.of(new StepCountResult(stepCount, events));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not read cache entry {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a result and evicts the least recently used entries if the cache grows too large
+     *
+     * @param contentHash The hash of the recording's bytes
+     * @param configHash  The hash of the detector configuration
+     * @param result      The result to store, including its events
+     */
+    public void put(long contentHash, long configHash, StepCountResult result) {
+        var path = entryPath(contentHash, configHash);
+        try {
+            // Concurrent runs on the same recording must never see a partially written entry
+            var temp = Files.createTempFile(directory, "entry", ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(contentHash);
+                out.writeLong(configHash);
+                out.writeDouble(result.stepCount());
+                out.writeInt(result.events().size());
+                for (StepEvent event : result.events()) {
+                    out.writeDouble(event.time());
+                    out.writeDouble(event.steps());
+                    out.writeDouble(event.stepCount());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict();
+        } catch (IOException e) {
+            LOGGER.warn("Could not write cache entry {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void evict() throws IOException {
+        List<Entry> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .map(Entry::of)
+                    .filter(entry -> entry.size() >= 0)
+                    .sorted(Comparator.comparing(Entry::lastAccess))
+                    .toList();
+        }
+
+        var totalBytes = entries.stream().mapToLong(Entry::size).sum();
+        for (int i = 0; totalBytes > maxBytes && i < entries.size(); i++) {
+            var entry = entries.get(i);
+            Files.deleteIfExists(entry.path());
+            totalBytes -= entry.size();
+            LOGGER.debug("Evicted cache entry {}", entry.path());
+        }
+    }
+
+    private record Entry(Path path, long size, FileTime lastAccess) {
+        static Entry of(Path path) {
+            try {
+                return new Entry(path, Files.size(path), Files.getLastModifiedTime(path));
+            } catch (IOException e) {
+                // Removed by a concurrent eviction
+                return new Entry(path, -1, FileTime.fromMillis(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package at.hagenberg.fh.wc.detector;
+
+import at.hagenberg.fh.wc.io.SampleSource;
+import at.hagenberg.fh.wc.metrics.Stage;
+import at.hagenberg.fh.wc.metrics.StepDetectorMetrics;
+import at.hagenberg.fh.wc.model.StepCountResult;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import at.hagenberg.fh.wc.model.StepEvent;
+
+import java.util.ArrayList;
+
+/**
+ * Slides the windows of the step detection over a whole recording: a window of {@code windowSize} samples is analyzed
+ * every {@code slidingWindowLength} samples, as long as at least one more sample follows it. Every batch count goes
+ * through here, whether the samples are on the heap or mapped off-heap.
+ */
+public class StepCounter {
+    private StepCounter() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Receives every analyzed window, whether it counts as walking or not
+     */
+    @FunctionalInterface
+    public interface WindowListener {
+        /**
+         * @param windowTime The timestamp of the last sample of the window
+         * @param analyzer   The analyzer holding the intermediates of the window
+         */
+        void window(double windowTime, WindowAnalyzer analyzer);
+    }
+
+    /**
+     * Counts the steps in a recording with the algorithm by X. Kang et al.
+     *
+     * @param samples  The recording
+     * @param config   The parameters of the detection
+     * @param listener Receives every analyzed window, may be null
+     * @return The step count and the windows that were counted as walking
+     */
+    public static StepCountResult countSteps(SampleSource samples, StepDetectorConfig config,
+                                             WindowListener listener) {
+        var n = samples.size();
+        var windowSize = config.windowSize();
+        var analyzer = new WindowAnalyzer(config);
+        var metrics = StepDetectorMetrics.getInstance();
+
+        double stepCount = 0;
+        var events = new ArrayList<StepEvent>();
+
+        for (long i = 0; (i + windowSize) < n; i += config.slidingWindowLength()) {
+            var c = analyzer.analyze(samples, i);
+            var time = samples.get(i + windowSize - 1, SampleSource.TIME);
+            if (listener != null) {
+                listener.window(time, analyzer);
+            }
+
+            if (c > 0) {
+                var stageStart = metrics.start();
+                stepCount += c;
+                events.add(new StepEvent(time, c, stepCount));
+                metrics.record(Stage.ACCUMULATION, stageStart);
+            }
+        }
+
+        return new StepCountResult(stepCount, events);
+    }
+}
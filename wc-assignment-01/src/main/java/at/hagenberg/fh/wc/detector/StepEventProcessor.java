@@ -0,0 +1,307 @@
+package at.hagenberg.fh.wc.detector;
+
+import at.hagenberg.fh.wc.model.SensorData;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import at.hagenberg.fh.wc.model.StepEvent;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link StreamingStepDetector} as a reactive stage: chunks of samples come in, step events go out. Detection runs on
+ * the thread that delivers the chunks, events are handed to the single subscriber on the given executor and only as far
+ * as it has requested them. Whenever the subscriber's demand allows, all queued events are delivered in one run instead
+ * of one task per event.
+ * <p>
+ * At most {@code capacity} events are queued for a slow subscriber, what happens beyond that is decided by the
+ * {@link OverflowPolicy}. As every event carries the running step count, dropped events only lose intermediate
+ * updates, the next delivered event is still correct.
+ */
+public class StepEventProcessor implements Flow.Processor<List<SensorData>, StepEvent> {
+    /**
+     * What to do with a step event while the queue of the subscriber is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Request no further chunks from upstream until the subscriber has caught up, the intake is throttled to the
+         * pace of the subscriber. A chunk that is already requested is still processed, so the queue may exceed its
+         * capacity by the events of one chunk.
+         */
+        BUFFER,
+        /**
+         * Discard the oldest queued event, the subscriber always receives the latest state
+         */
+        DROP_OLDEST,
+        /**
+         * Discard the new event, the subscriber receives the events up to the point where it fell behind
+         */
+        DROP_LATEST
+    }
+
+    private final StreamingStepDetector detector;
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy policy;
+
+    private final ArrayDeque<StepEvent> queue = new ArrayDeque<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final AtomicBoolean upstreamRequested = new AtomicBoolean();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private volatile Flow.Subscription upstream;
+    /**
+     * Only set once {@code onSubscribe} has returned, no delivery run starts before, so signals are never concurrent
+     */
+    private volatile Flow.Subscriber<? super StepEvent> subscriber;
+    private volatile boolean cancelled;
+    private volatile boolean completed;
+    private volatile Throwable failure;
+    /**
+     * Set by a request for a non-positive number of events, which ends the subscription with this error right away
+     */
+    private volatile Throwable invalidDemand;
+
+    /**
+     * @param config   The parameters of the detection
+     * @param executor The executor the subscriber is called on
+     * @param capacity The number of events that are queued for a slow subscriber
+     * @param policy   What to do with events while the queue is full
+     */
+    public StepEventProcessor(StepDetectorConfig config, Executor executor, int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.detector = new StreamingStepDetector(config);
+        this.executor = Objects.requireNonNull(executor);
+        this.capacity = capacity;
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super StepEvent> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+            return;
+        }
+        executor.execute(() -> {
+            subscriber.onSubscribe(new Downstream());
+            this.subscriber = subscriber;
+            // Completion must be signalled even without demand, and requests made in onSubscribe are served now
+            drain();
+        });
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        if (policy == OverflowPolicy.BUFFER) {
+            requestUpstream();
+        } else {
+            // Dropping keeps the queue bounded, so the intake never has to wait for the subscriber
+            subscription.request(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public void onNext(List<SensorData> chunk) {
+        if (cancelled) {
+            return;
+        }
+        for (SensorData sample : chunk) {
+            if (cancelled) {
+                return;
+            }
+            var event = detector.accept(sample);
+            if (event != null) {
+                enqueue(event);
+            }
+        }
+        if (policy == OverflowPolicy.BUFFER) {
+            upstreamRequested.set(false);
+            requestUpstream();
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = throwable;
+        completed = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+        drain();
+    }
+
+    /**
+     * @return The number of events discarded by a drop policy so far
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The step count of all samples received so far, including the ones of undelivered events
+     */
+    public double stepCount() {
+        return detector.stepCount();
+    }
+
+    private void enqueue(StepEvent event) {
+        synchronized (queue) {
+            if (cancelled) {
+                return;
+            }
+            if (queue.size() >= capacity) {
+                switch (policy) {
+                    case DROP_OLDEST -> {
+                        queue.poll();
+                        dropped.incrementAndGet();
+                    }
+                    case DROP_LATEST -> {
+                        dropped.incrementAndGet();
+                        return;
+                    }
+                    case BUFFER -> {
+                        // Bounded by the events of the chunk in flight, as no further chunk is requested
+                    }
+                }
+            }
+            queue.add(event);
+        }
+    }
+
+    private int queued() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private void requestUpstream() {
+        var subscription = upstream;
+        if (subscription != null && !cancelled && !completed && queued() < capacity
+                && upstreamRequested.compareAndSet(false, true)) {
+            subscription.request(1);
+        }
+    }
+
+    /**
+     * Schedules a delivery run unless one is already pending, a run that is in progress repeats until no further
+     * delivery was requested meanwhile
+     */
+    private void drain() {
+        if (subscriber != null && drainRequests.getAndIncrement() == 0) {
+            executor.execute(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        var target = subscriber;
+        var missed = 1;
+        do {
+            var delivered = 0L;
+            var requested = demand.get();
+            while (!cancelled && delivered < requested) {
+                StepEvent event;
+                synchronized (queue) {
+                    event = queue.poll();
+                }
+                if (event == null) {
+                    break;
+                }
+                target.onNext(event);
+                delivered++;
+            }
+            if (delivered > 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-delivered);
+            }
+
+            if (cancelled) {
+                synchronized (queue) {
+                    queue.clear();
+                }
+                // Returning without resetting the drain requests keeps any further run from starting
+                var error = invalidDemand;
+                if (error != null) {
+                    target.onError(error);
+                }
+                return;
+            }
+            if (completed && queued() == 0) {
+                cancelled = true;
+                if (failure != null) {
+                    target.onError(failure);
+                } else {
+                    target.onComplete();
+                }
+                return;
+            }
+            if (policy == OverflowPolicy.BUFFER) {
+                requestUpstream();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private final class Downstream implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (!cancelled) {
+                    // Stops the intake and skips queued events, the error is the next and last signal
+                    invalidDemand = new IllegalArgumentException("Demand must be positive, got " + n);
+                    cancelled = true;
+                    synchronized (queue) {
+                        queue.clear();
+                    }
+                    cancelUpstream();
+                    drain();
+                }
+                return;
+            }
+            demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        }
+
+        private void cancelUpstream() {
+            var subscription = upstream;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
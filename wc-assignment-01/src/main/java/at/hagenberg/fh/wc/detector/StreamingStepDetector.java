@@ -0,0 +1,94 @@
+package at.hagenberg.fh.wc.detector;
+
+import at.hagenberg.fh.wc.metrics.Stage;
+import at.hagenberg.fh.wc.metrics.StepDetectorMetrics;
+import at.hagenberg.fh.wc.model.SensorData;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import at.hagenberg.fh.wc.model.StepEvent;
+
+/**
+ * Sample-by-sample variant of the step detection in {@code Main}. The last {@code windowSize} samples are kept in
+ * ring buffers and a window is analyzed as soon as it is complete, i.e. every {@code slidingWindowLength} samples.
+ * {@code Main} only analyzes a window once at least one more sample follows it, so for a recording whose length is
+ * exactly the end of a window, the detector counts that last window while {@code Main} does not.
+ * <p>
+ * A detector is not thread-safe, use one per stream.
+ */
+public class StreamingStepDetector {
+    private final int windowSize;
+    private final int slidingWindowLength;
+    private final WindowAnalyzer analyzer;
+    private final StepDetectorMetrics metrics = StepDetectorMetrics.getInstance();
+    private final double[] wx;
+    private final double[] wy;
+    private final double[] wz;
+
+    private long sampleCount;
+    private double stepCount;
+    private double lastTime = Double.NaN;
+
+    public StreamingStepDetector(StepDetectorConfig config) {
+        this.windowSize = config.windowSize();
+        this.slidingWindowLength = config.slidingWindowLength();
+        this.analyzer = new WindowAnalyzer(config);
+        this.wx = new double[windowSize];
+        this.wy = new double[windowSize];
+        this.wz = new double[windowSize];
+    }
+
+    /**
+     * Feeds the next sample
+     *
+     * @param sample The sample, must be newer than all samples before
+     * @return The step event if the sample completed a window that counts as walking, null otherwise
+     */
+    public StepEvent accept(SensorData sample) {
+        return accept(sample.time(), sample.wx(), sample.wy(), sample.wz());
+    }
+
+    /**
+     * Feeds the next sample without wrapping it into a {@link SensorData}
+     *
+     * @return The step event if the sample completed a window that counts as walking, null otherwise
+     */
+    public StepEvent accept(double time, double x, double y, double z) {
+        var position = (int) (sampleCount % windowSize);
+        wx[position] = x;
+        wy[position] = y;
+        wz[position] = z;
+        sampleCount++;
+        lastTime = time;
+
+        if (sampleCount < windowSize || (sampleCount - windowSize) % slidingWindowLength != 0) {
+            return null;
+        }
+
+        // The oldest sample of the window is the one that is overwritten next
+        var c = analyzer.analyze(wx, wy, wz, (int) (sampleCount % windowSize));
+        if (c <= 0) {
+            return null;
+        }
+
+        var stageStart = metrics.start();
+        stepCount += c;
+        var event = new StepEvent(time, c, stepCount);
+        metrics.record(Stage.ACCUMULATION, stageStart);
+
+        return event;
+    }
+
+    public double stepCount() {
+        return stepCount;
+    }
+
+    public long sampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return The timestamp of the last sample, NaN before the first one
+     */
+    public double lastTime() {
+        return lastTime;
+    }
+}
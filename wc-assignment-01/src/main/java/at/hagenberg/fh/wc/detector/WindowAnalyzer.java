@@ -0,0 +1,244 @@
+package at.hagenberg.fh.wc.detector;
+
+import at.hagenberg.fh.wc.helper.PolynomialHelper;
+import at.hagenberg.fh.wc.io.SampleSource;
+import at.hagenberg.fh.wc.metrics.Stage;
+import at.hagenberg.fh.wc.metrics.StepDetectorMetrics;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+/**
+ * Computes the steps of a single window with the algorithm by X. Kang et al.: the axis with the highest mean absolute
+ * angular velocity is transformed, and if the step band (bins 2 to 6) dominates the low band (bins 0 and 1), the
+ * argmax of a quartic fitted to the step band yields the step frequency.
+ * <p>
+ * An analyzer reuses its buffers and must not be shared between threads.
+ */
+public class WindowAnalyzer {
+    private final StepDetectorConfig config;
+    private final FastFourierTransformer fft = new FastFourierTransformer(DftNormalization.STANDARD);
+    private final StepDetectorMetrics metrics = StepDetectorMetrics.getInstance();
+    private final double[] axisData;
+
+    // Intermediates of the last analyzed window, see WindowFeatures
+    private int lastAxis;
+    private double[] lastMagnitudes;
+    private double lastW0;
+    private double lastWc;
+    private double[] lastCoefficients;
+
+    public WindowAnalyzer(StepDetectorConfig config) {
+        this.config = config;
+        this.axisData = new double[config.windowSize()];
+    }
+
+    /**
+     * Analyzes the window of {@code windowSize} samples that begins at {@code start}. The arrays may be ring buffers
+     * of exactly {@code windowSize} samples, in which case the window wraps around at their end.
+     *
+     * @param wx    The angular velocities around the x axis
+     * @param wy    The angular velocities around the y axis
+     * @param wz    The angular velocities around the z axis
+     * @param start The index of the first sample of the window
+     * @return The steps made during the hop of the window, or 0 if it does not count as walking
+     */
+    public double analyze(double[] wx, double[] wy, double[] wz, int start) {
+        var windowStart = metrics.start();
+        var windowSize = config.windowSize();
+        var idx = mostSensitiveAxisIndex(wx, wy, wz, start, windowSize);
+
+        var axis = switch (idx) {
+            case 0 -> wx;  // wx axis
+            case 1 -> wy;  // wy axis
+            default -> wz;  // wz axis
+        };
+        var position = start;
+        for (int j = 0; j < windowSize; j++) {
+            axisData[j] = axis[position];
+            if (++position == axis.length) {
+                position = 0;
+            }
+        }
+        metrics.record(Stage.AXIS_SELECTION, windowStart);
+
+        lastAxis = idx;
+        var steps = stepsOfAxis(axisData);
+        metrics.recordWindow(windowStart, steps > 0);
+
+        return steps;
+    }
+
+    /**
+     * Analyzes the window of {@code windowSize} samples that begins at {@code start} where the recording holds it, e.g.
+     * directly in off-heap memory. Only the samples of the most sensitive axis are copied, into the buffer the FFT runs
+     * on.
+     *
+     * @param recording The recording
+     * @param start     The index of the first sample of the window
+     * @return The steps made during the hop of the window, or 0 if it does not count as walking
+     */
+    public double analyze(SampleSource recording, long start) {
+        var windowStart = metrics.start();
+        var windowSize = config.windowSize();
+
+        var meanAbs = new double[3];
+        for (int j = 0; j < windowSize; j++) {
+            meanAbs[0] += Math.abs(recording.get(start + j, SampleSource.WX));
+            meanAbs[1] += Math.abs(recording.get(start + j, SampleSource.WY));
+            meanAbs[2] += Math.abs(recording.get(start + j, SampleSource.WZ));
+        }
+        lastAxis = maxIndex(meanAbs, windowSize);
+        var column = SampleSource.WX + lastAxis;
+        for (int j = 0; j < windowSize; j++) {
+            axisData[j] = recording.get(start + j, column);
+        }
+        metrics.record(Stage.AXIS_SELECTION, windowStart);
+
+        var steps = stepsOfAxis(axisData);
+        metrics.recordWindow(windowStart, steps > 0);
+
+        return steps;
+    }
+
+    /**
+     * Analyzes a window whose most sensitive axis the caller has already chosen, e.g. from running sums
+     *
+     * @param axisData The {@code windowSize} samples of the most sensitive axis in chronological order
+     * @return The steps made during the hop of the window, or 0 if it does not count as walking
+     */
+    public double analyzeAxis(double[] axisData) {
+        var windowStart = metrics.start();
+        lastAxis = -1;
+        var steps = stepsOfAxis(axisData);
+        metrics.recordWindow(windowStart, steps > 0);
+
+        return steps;
+    }
+
+    /**
+     * Runs the frequency analysis on the samples of the chosen axis
+     *
+     * @param axisData The {@code windowSize} samples of the most sensitive axis
+     * @return The steps made during the hop of the window, or 0 if it does not count as walking
+     */
+    private double stepsOfAxis(double[] axisData) {
+        var stageStart = metrics.start();
+        var fftResult = fft.transform(axisData, TransformType.FORWARD);
+        var magnitudes = magnitudesFromFFT(fftResult);
+        metrics.record(Stage.FFT, stageStart);
+
+        // Get the first two (w0) and next five (wc) components
+        var w0 = (magnitudes[0] + magnitudes[1]) / 2;
+        var wc = 0d;
+        for (int j = 2; j < 7; j++) {
+            wc += magnitudes[j];
+        }
+        wc /= 5;
+        lastMagnitudes = magnitudes;
+        lastW0 = w0;
+        lastWc = wc;
+        lastCoefficients = null;
+
+        // Step detection logic
+        if (!config.isWalking(w0, wc)) {
+            return 0;
+        }
+
+        // The fit is only needed here, so the fitter is not even loaded for recordings without walking
+        stageStart = metrics.start();
+        var coefficients = PolynomialHelper.fit(magnitudes);
+        lastCoefficients = coefficients;
+        metrics.record(Stage.FIT, stageStart);
+
+        stageStart = metrics.start();
+        double boundedMinimizationMax = PolynomialHelper.goldenSectionSearch(coefficients,
+                config.searchLowerBound(), config.searchUpperBound(), config.searchTolerance());
+        metrics.record(Stage.ARGMAX, stageStart);
+
+        return config.steps(boundedMinimizationMax);
+    }
+
+    /**
+     * @return The axis the last window was analyzed on (0 for x, 1 for y, 2 for z), or -1 if the caller chose it
+     */
+    public int lastAxis() {
+        return lastAxis;
+    }
+
+    /**
+     * @return The magnitudes of all frequency bins of the last window, owned by the caller from now on
+     */
+    public double[] lastMagnitudes() {
+        return lastMagnitudes;
+    }
+
+    /**
+     * @return The mean magnitude of the low band (bins 0 and 1) of the last window
+     */
+    public double lastW0() {
+        return lastW0;
+    }
+
+    /**
+     * @return The mean magnitude of the step band (bins 2 to 6) of the last window
+     */
+    public double lastWc() {
+        return lastWc;
+    }
+
+    /**
+     * @return The coefficients fitted to the last window, or null if it did not pass the gate and was not fitted
+     */
+    public double[] lastCoefficients() {
+        return lastCoefficients;
+    }
+
+    private static double[] magnitudesFromFFT(Complex[] fftResult) {
+        var magnitudes = new double[fftResult.length];
+        for (int j = 0; j < fftResult.length; j++) {
+            magnitudes[j] = 2 * fftResult[j].abs();
+        }
+
+        return magnitudes;
+    }
+
+    private static int mostSensitiveAxisIndex(double[] wx, double[] wy, double[] wz, int start, int windowSize) {
+        double[] meanAbs = new double[3];
+        var position = start;
+        for (int j = 0; j < windowSize; j++) {
+            meanAbs[0] += Math.abs(wx[position]);
+            meanAbs[1] += Math.abs(wy[position]);
+            meanAbs[2] += Math.abs(wz[position]);
+            if (++position == wx.length) {
+                position = 0;
+            }
+        }
+
+        return maxIndex(meanAbs, windowSize);
+    }
+
+    /**
+     * @param meanAbs The sums of the absolute values of the three axes, divided in place into their means
+     * @return The axis with the highest mean absolute value, the first one on ties
+     */
+    private static int maxIndex(double[] meanAbs, int windowSize) {
+        for (int j = 0; j < 3; j++) {
+            meanAbs[j] /= windowSize;
+        }
+
+        // Find the axis with the maximum mean absolute value
+        int idx = 0;
+        double maxMeanAbs = meanAbs[0];
+        for (int j = 1; j < 3; j++) {
+            if (meanAbs[j] > maxMeanAbs) {
+                idx = j;
+                maxMeanAbs = meanAbs[j];
+            }
+        }
+
+        return idx;
+    }
+}
@@ -0,0 +1,61 @@
+package at.hagenberg.fh.wc.features;
+
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Recomputes the step counts of feature files written by {@code Main} with {@code -Dwc.features.file=<file>} for
+ * another gate or search interval, without touching the recordings. Usage:
+ * {@code FeatureReplay <min window magnitude> <search lower bound> <search upper bound> <files or directories...>},
+ * directories are searched for files ending in {@code .features}.
+ */
+public class FeatureReplay {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeatureReplay.class);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            LOGGER.error("Usage: FeatureReplay <min window magnitude> <search lower bound> <search upper bound>"
+                    + " <files or directories...>");
+            return;
+        }
+        var defaults = StepDetectorConfig.DEFAULT;
+        var config = new StepDetectorConfig(defaults.samplingFrequency(), defaults.windowSize(),
+                defaults.slidingWindowDuration(), Double.parseDouble(args[0]), Double.parseDouble(args[1]),
+                Double.parseDouble(args[2]), defaults.searchTolerance());
+
+        var files = new ArrayList<Path>();
+        for (int i = 3; i < args.length; i++) {
+            files.addAll(featureFiles(Path.of(args[i])));
+        }
+
+        var start = System.nanoTime();
+        var total = files.parallelStream().mapToDouble(file -> {
+            try {
+                var stepCount = WindowFeatures.read(file).replay(config).stepCount();
+                LOGGER.info("{}: {} steps", file, stepCount);
+                return stepCount;
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.error("Skipping {}: {}", file, e.getMessage());
+                return 0;
+            }
+        }).sum();
+        LOGGER.info("{} steps in {} files, replayed in {} s", total, files.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private static List<Path> featureFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(WindowFeatures.EXTENSION)).toList();
+        }
+    }
+}
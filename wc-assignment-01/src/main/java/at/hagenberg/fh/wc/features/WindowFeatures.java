@@ -0,0 +1,311 @@
+package at.hagenberg.fh.wc.features;
+
+import at.hagenberg.fh.wc.detector.WindowAnalyzer;
+import at.hagenberg.fh.wc.helper.PolynomialBatch;
+import at.hagenberg.fh.wc.model.StepCountResult;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import at.hagenberg.fh.wc.model.StepEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The intermediates of every window of a recording: the time of its last sample, the chosen axis, the magnitudes of
+ * the bins 0 to 6, {@code w0}, {@code wc} and the coefficients of the quartic fitted to the bins 2 to 6. Everything
+ * after the FFT only depends on these, so {@link #replay(StepDetectorConfig)} recomputes the step count for a different
+ * gate or search interval without parsing the recording or transforming a single window again.
+ * <p>
+ * Features are stored column by column: the magic number {@code WCWF}, a version, the number of windows and the
+ * sampling frequency, window size and sliding window duration they were extracted with, followed by one column per
+ * value.
+ * The coefficients of windows that did not pass the gate at extraction time are fitted by {@link PolynomialBatch}, the
+ * others are the ones the detector used, so a replay with unchanged parameters yields exactly the original count.
+ */
+public class WindowFeatures {
+    public static final String EXTENSION = ".features";
+    /**
+     * The number of frequency bins kept per window
+     */
+    public static final int BINS = 7;
+
+    private static final int MAGIC = 0x57435746; // "WCWF"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + Float.BYTES + Integer.BYTES + Float.BYTES;
+    private static final int DOUBLE_COLUMNS = 1 + BINS + 2 + PolynomialBatch.POINTS;
+
+    private final float samplingFrequency;
+    private final int windowSize;
+    private final float slidingWindowDuration;
+    private final int count;
+    private final double[] time;
+    private final byte[] axis;
+    private final double[][] magnitudes;
+    private final double[] w0;
+    private final double[] wc;
+    private final double[][] coefficients;
+
+    private WindowFeatures(float samplingFrequency, int windowSize, float slidingWindowDuration, int count,
+                           double[] time, byte[] axis, double[][] magnitudes, double[] w0, double[] wc,
+                           double[][] coefficients) {
+        this.samplingFrequency = samplingFrequency;
+        this.windowSize = windowSize;
+        this.slidingWindowDuration = slidingWindowDuration;
+        this.count = count;
+        this.time = time;
+        this.axis = axis;
+        this.magnitudes = magnitudes;
+        this.w0 = w0;
+        this.wc = wc;
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * @return The number of windows
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Recomputes the step count from the features alone
+     *
+     * @param config The parameters of the detection, only the gate and the search may differ from the ones the features
+     *               were extracted with
+     * @return The step count and the windows that were counted as walking
+     */
+    public StepCountResult replay(StepDetectorConfig config) {
+        if (config.samplingFrequency() != samplingFrequency || config.windowSize() != windowSize
+                || config.slidingWindowDuration() != slidingWindowDuration) {
+            throw new IllegalArgumentException("The features were extracted with other windows, only the gate and"
+                    + " the search can be changed");
+        }
+
+        // The windows that pass the gate, their coefficients row by row for one batched search
+        var points = PolynomialBatch.POINTS;
+        var walking = new int[count];
+        var walkingCount = 0;
+        for (int k = 0; k < count; k++) {
+            if (config.isWalking(w0[k], wc[k])) {
+                walking[walkingCount++] = k;
+            }
+        }
+        var walkingCoefficients = new double[walkingCount * points];
+        for (int j = 0; j < walkingCount; j++) {
+            for (int i = 0; i < points; i++) {
+                walkingCoefficients[j * points + i] = coefficients[i][walking[j]];
+            }
+        }
+        var argmax = new double[walkingCount];
+        PolynomialBatch.argmax(walkingCoefficients, walkingCount, config.searchLowerBound(),
+                config.searchUpperBound(), config.searchTolerance(), argmax);
+
+        double stepCount = 0;
+        var events = new ArrayList<StepEvent>();
+        for (int j = 0; j < walkingCount; j++) {
+            var c = config.steps(argmax[j]);
+            stepCount += c;
+            events.add(new StepEvent(time[walking[j]], c, stepCount));
+        }
+
+        return new StepCountResult(stepCount, events);
+    }
+
+    /**
+     * Writes the features, replacing the file atomically
+     *
+     * @param file The file to write to
+     * @throws IOException If the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        var buffer = ByteBuffer.allocate(HEADER_BYTES + count + DOUBLE_COLUMNS * count * Double.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(count)
+                .putFloat(samplingFrequency).putInt(windowSize).putFloat(slidingWindowDuration);
+
+        putColumn(buffer, time);
+        buffer.put(axis, 0, count);
+        for (double[] bin : magnitudes) {
+            putColumn(buffer, bin);
+        }
+        putColumn(buffer, w0);
+        putColumn(buffer, wc);
+        for (double[] coefficient : coefficients) {
+            putColumn(buffer, coefficient);
+        }
+        buffer.flip();
+
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void putColumn(ByteBuffer buffer, double[] column) {
+        buffer.asDoubleBuffer().put(column, 0, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+    }
+
+    /**
+     * Reads features written by {@link #write(Path)}
+     *
+     * @param file The file to read
+     * @return The features
+     * @throws IOException If the file cannot be read or is not a feature file
+     */
+    public static WindowFeatures read(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a feature file: " + file);
+            }
+            var version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported feature file version " + version);
+            }
+            var count = buffer.getInt();
+            var samplingFrequency = buffer.getFloat();
+            var windowSize = buffer.getInt();
+            var slidingWindowDuration = buffer.getFloat();
+            if (buffer.remaining() != count + (long) DOUBLE_COLUMNS * count * Double.BYTES) {
+                throw new IOException("Feature file is truncated: " + file);
+            }
+
+            var time = getColumn(buffer, count);
+            var axis = new byte[count];
+            buffer.get(axis);
+            var magnitudes = new double[BINS][];
+            for (int i = 0; i < BINS; i++) {
+                magnitudes[i] = getColumn(buffer, count);
+            }
+            var w0 = getColumn(buffer, count);
+            var wc = getColumn(buffer, count);
+            var coefficients = new double[PolynomialBatch.POINTS][];
+            for (int i = 0; i < coefficients.length; i++) {
+                coefficients[i] = getColumn(buffer, count);
+            }
+
+            return new WindowFeatures(samplingFrequency, windowSize, slidingWindowDuration, count, time, axis,
+                    magnitudes, w0, wc, coefficients);
+        }
+    }
+
+    private static double[] getColumn(ByteBuffer buffer, int count) {
+        var column = new double[count];
+        buffer.asDoubleBuffer().get(column);
+        buffer.position(buffer.position() + count * Double.BYTES);
+
+        return column;
+    }
+
+    /**
+     * Collects the features of the windows of one recording while the detector analyzes them
+     */
+    public static class Builder {
+        private final StepDetectorConfig config;
+        private int count;
+        private double[] time = new double[64];
+        private byte[] axis = new byte[64];
+        private double[][] magnitudes = new double[BINS][64];
+        private double[] w0 = new double[64];
+        private double[] wc = new double[64];
+        private double[][] coefficients = new double[PolynomialBatch.POINTS][64];
+        private boolean[] fitted = new boolean[64];
+
+        /**
+         * @param config The parameters the windows are analyzed with
+         */
+        public Builder(StepDetectorConfig config) {
+            this.config = config;
+        }
+
+        /**
+         * Adds the features of the window the analyzer has just analyzed
+         *
+         * @param windowTime The time of the last sample of the window
+         * @param analyzer   The analyzer
+         */
+        public void add(double windowTime, WindowAnalyzer analyzer) {
+            if (count == time.length) {
+                grow();
+            }
+
+            time[count] = windowTime;
+            axis[count] = (byte) analyzer.lastAxis();
+            var windowMagnitudes = analyzer.lastMagnitudes();
+            for (int i = 0; i < BINS; i++) {
+                magnitudes[i][count] = windowMagnitudes[i];
+            }
+            w0[count] = analyzer.lastW0();
+            wc[count] = analyzer.lastWc();
+            var windowCoefficients = analyzer.lastCoefficients();
+            fitted[count] = windowCoefficients != null;
+            if (windowCoefficients != null) {
+                for (int i = 0; i < windowCoefficients.length; i++) {
+                    coefficients[i][count] = windowCoefficients[i];
+                }
+            }
+            count++;
+        }
+
+        private void grow() {
+            var capacity = time.length * 2;
+            time = Arrays.copyOf(time, capacity);
+            axis = Arrays.copyOf(axis, capacity);
+            for (int i = 0; i < BINS; i++) {
+                magnitudes[i] = Arrays.copyOf(magnitudes[i], capacity);
+            }
+            w0 = Arrays.copyOf(w0, capacity);
+            wc = Arrays.copyOf(wc, capacity);
+            for (int i = 0; i < coefficients.length; i++) {
+                coefficients[i] = Arrays.copyOf(coefficients[i], capacity);
+            }
+            fitted = Arrays.copyOf(fitted, capacity);
+        }
+
+        /**
+         * Fits the windows the detector did not fit and returns the features
+         */
+        public WindowFeatures build() {
+            var points = PolynomialBatch.POINTS;
+            var missing = 0;
+            for (int k = 0; k < count; k++) {
+                if (!fitted[k]) {
+                    missing++;
+                }
+            }
+
+            var input = new double[missing * points];
+            var output = new double[missing * points];
+            for (int k = 0, row = 0; k < count; k++) {
+                if (!fitted[k]) {
+                    for (int i = 0; i < points; i++) {
+                        input[row * points + i] = magnitudes[2 + i][k];
+                    }
+                    row++;
+                }
+            }
+            PolynomialBatch.fit(input, missing, output);
+            for (int k = 0, row = 0; k < count; k++) {
+                if (!fitted[k]) {
+                    for (int i = 0; i < points; i++) {
+                        coefficients[i][k] = output[row * points + i];
+                    }
+                    row++;
+                }
+            }
+
+            return new WindowFeatures(config.samplingFrequency(), config.windowSize(),
+                    config.slidingWindowDuration(), count, time, axis, magnitudes, w0, wc, coefficients);
+        }
+    }
+}
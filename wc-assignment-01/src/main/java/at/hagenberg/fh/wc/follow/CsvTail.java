@@ -0,0 +1,104 @@
+package at.hagenberg.fh.wc.follow;
+
+import at.hagenberg.fh.wc.io.CsvRecording;
+import at.hagenberg.fh.wc.model.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Incremental reader of a CSV recording that is still being appended to. It remembers the byte offset up to which the
+ * file has been parsed, so every call only reads the bytes appended since the last one. A line without a terminating
+ * newline is kept until the rest of it arrives. If the file shrinks, it is assumed to be replaced and read from the
+ * start again.
+ * <p>
+ * A tail is not thread-safe.
+ */
+public class CsvTail {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvTail.class);
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path file;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final StringBuilder line = new StringBuilder(64);
+    private long offset;
+    private long lineNumber;
+
+    /**
+     * @param file The CSV file to follow, does not need to exist yet
+     */
+    public CsvTail(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Parses the complete lines appended since the last call
+     *
+     * @param consumer Receives the samples of the new lines in file order
+     * @return The number of new samples
+     * @throws IOException If the file cannot be read
+     */
+    public long readAppended(Consumer<SensorData> consumer) throws IOException {
+        long samples = 0;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < offset) {
+                LOGGER.warn("{} was truncated, reading it from the start", file);
+                offset = 0;
+                lineNumber = 0;
+                line.setLength(0);
+            }
+
+            int read;
+            while ((read = channel.read(buffer.clear(), offset)) > 0) {
+                offset += read;
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    var b = buffer.get();
+                    if (b == '\n') {
+                        samples += parseLine(consumer);
+                        line.setLength(0);
+                    } else if (b != '\r') {
+                        // The format is plain ASCII
+                        line.append((char) b);
+                    }
+                }
+            }
+        }
+
+        return samples;
+    }
+
+    private int parseLine(Consumer<SensorData> consumer) {
+        lineNumber++;
+        if (line.isEmpty() || (lineNumber == 1 && CsvRecording.HEADER.contentEquals(line))) {
+            return 0;
+        }
+
+        var values = line.toString().split(",");
+        try {
+            consumer.accept(new SensorData(Double.parseDouble(values[0]), Double.parseDouble(values[1]),
+                    Double.parseDouble(values[2]), Double.parseDouble(values[3])));
+            return 1;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            LOGGER.warn("Skipping malformed line {} of {}: {}", lineNumber, file, line);
+            return 0;
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * @return The number of bytes read so far, including a pending incomplete line
+     */
+    public long offset() {
+        return offset;
+    }
+}
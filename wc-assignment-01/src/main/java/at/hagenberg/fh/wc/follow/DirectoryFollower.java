@@ -0,0 +1,187 @@
+package at.hagenberg.fh.wc.follow;
+
+import at.hagenberg.fh.wc.detector.StreamingStepDetector;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the step counts of the CSV recordings in a directory current while gateways append to them. Changes are picked
+ * up through a {@link WatchService}, each file is parsed incrementally by a {@link CsvTail} and fed into its own
+ * {@link StreamingStepDetector}, so no file is ever read twice. In addition, all files are polled every few seconds in
+ * case the platform's watch service misses or coalesces events.
+ * <p>
+ * Usage: {@code DirectoryFollower [directory]}, by default the working directory is followed.
+ */
+public class DirectoryFollower implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryFollower.class);
+    private static final String SUFFIX = ".csv";
+    private static final long POLL_INTERVAL_SECONDS = 5;
+
+    private final Path directory;
+    private final StepDetectorConfig config;
+    private final WatchService watchService;
+    private final Map<Path, FollowedFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory The directory with the recordings, one CSV file per device
+     * @param config    The parameters of the detection
+     * @throws IOException If the directory cannot be watched
+     */
+    public DirectoryFollower(Path directory, StepDetectorConfig config) throws IOException {
+        this.directory = directory;
+        this.config = config;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    public static void main(String[] args) throws IOException {
+        var directory = Path.of(args.length > 0 ? args[0] : ".");
+        try (var follower = new DirectoryFollower(directory, StepDetectorConfig.DEFAULT)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(follower::close));
+            LOGGER.info("Following the recordings in {}", directory.toAbsolutePath());
+            follower.run();
+        }
+    }
+
+    /**
+     * Follows the directory until the follower is closed
+     */
+    public void run() {
+        pollAll();
+        try {
+            while (true) {
+                var key = watchService.poll(POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                if (key == null) {
+                    pollAll();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        pollAll();
+                    } else if (event.context() instanceof Path name && name.toString().endsWith(SUFFIX)) {
+                        var file = directory.resolve(name);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                            forget(file);
+                        } else {
+                            poll(file);
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    LOGGER.error("{} is no longer accessible", directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.debug("Stopped following {}", directory);
+        }
+    }
+
+    private void pollAll() {
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).forEach(this::poll);
+        } catch (IOException e) {
+            LOGGER.error("Could not list {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the lines appended to a file since the last poll and logs its step count if it changed
+     *
+     * @param file The file to poll
+     */
+    public void poll(Path file) {
+        var followed = files.computeIfAbsent(file, this::follow);
+        try {
+            if (Files.size(file) < followed.tail().offset()) {
+                // A new recording replaced the file, its steps must not add to the old ones
+                LOGGER.info("{} was replaced after {} steps", file.getFileName(), followed.detector().stepCount());
+                followed = follow(file);
+                files.put(file, followed);
+            }
+            var before = followed.detector().stepCount();
+            var samples = followed.tail().readAppended(followed.detector()::accept);
+            var after = followed.detector().stepCount();
+            followed.stepCount = after;
+            if (after != before) {
+                LOGGER.info("{}: {} steps", file.getFileName(), after);
+            } else if (samples > 0) {
+                LOGGER.debug("{}: {} new samples", file.getFileName(), samples);
+            }
+        } catch (NoSuchFileException e) {
+            forget(file);
+        } catch (IOException e) {
+            LOGGER.warn("Could not read {}: {}", file, e.getMessage());
+        }
+    }
+
+    private FollowedFile follow(Path file) {
+        return new FollowedFile(new CsvTail(file), new StreamingStepDetector(config));
+    }
+
+    private void forget(Path file) {
+        var followed = files.remove(file);
+        if (followed != null) {
+            LOGGER.info("{} was removed after {} steps", file.getFileName(), followed.detector().stepCount());
+        }
+    }
+
+    /**
+     * @param file A followed file
+     * @return The step count of the file as of its last poll, or 0 if it is not followed. May be called from any
+     * thread, the count is published by the thread running the follower after every poll.
+     */
+    public double stepCount(Path file) {
+        var followed = files.get(file);
+        return followed == null ? 0 : followed.stepCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close the watch service: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The tail and the detector are only used by the thread polling the file, other threads read the step count it
+     * published last
+     */
+    private static final class FollowedFile {
+        private final CsvTail tail;
+        private final StreamingStepDetector detector;
+        private volatile double stepCount;
+
+        private FollowedFile(CsvTail tail, StreamingStepDetector detector) {
+            this.tail = tail;
+            this.detector = detector;
+        }
+
+        private CsvTail tail() {
+            return tail;
+        }
+
+        private StreamingStepDetector detector() {
+            return detector;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package at.hagenberg.fh.wc.helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fast non-cryptographic 64-bit hashing based on the mixing steps of MurmurHash3
+ */
+public class HashHelper {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    /**
+     * The most bytes of a file mapped at once, a multiple of eight so that only the last chunk has a tail
+     */
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    private HashHelper() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Mixes a block of eight bytes into the hash
+     *
+     * @param hash  The hash so far
+     * @param block The next block
+     * @return The updated hash
+     */
+    public static long mix(long hash, long block) {
+        block *= C1;
+        block = Long.rotateLeft(block, 31);
+        block *= C2;
+        hash ^= block;
+
+        return Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+    }
+
+    /**
+     * Applies the final avalanche
+     *
+     * @param hash   The hash after mixing all blocks
+     * @param length The number of hashed bytes or blocks
+     * @return The final hash
+     */
+    public static long finish(long hash, long length) {
+        hash ^= length;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    /**
+     * Hashes the remaining bytes of a buffer
+     *
+     * @param buffer The bytes to hash, its position is moved to the limit
+     * @return The hash
+     */
+    public static long hash(ByteBuffer buffer) {
+        var length = buffer.remaining();
+        return finish(mixTail(mixBlocks(0, buffer), buffer), length);
+    }
+
+    /**
+     * Mixes all complete blocks of eight bytes of a buffer in little-endian order
+     */
+    private static long mixBlocks(long hash, ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.remaining() >= Long.BYTES) {
+            hash = mix(hash, buffer.getLong());
+        }
+
+        return hash;
+    }
+
+    /**
+     * Mixes the fewer than eight bytes left in a buffer, if any are not zero
+     */
+    private static long mixTail(long hash, ByteBuffer buffer) {
+        long tail = 0;
+        for (int shift = 0; buffer.hasRemaining(); shift += Byte.SIZE) {
+            tail |= (buffer.get() & 0xFFL) << shift;
+        }
+        if (tail != 0) {
+            hash = mix(hash, tail);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Hashes the content of a file without copying it onto the heap. The file is mapped in chunks of at most 1 GiB, a
+     * single mapping cannot exceed 2 GiB. The hash is the same as that of {@link #hash(ByteBuffer)} over all bytes.
+     *
+     * @param path The file to hash
+     * @return The hash
+     * @throws IOException If the file cannot be read
+     */
+    public static long hash(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            long hash = 0;
+            for (long position = 0; position < size; position += CHUNK_BYTES) {
+                var chunkSize = Math.min(CHUNK_BYTES, size - position);
+                var chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, chunkSize);
+                hash = mixTail(mixBlocks(hash, chunk), chunk);
+            }
+
+            return finish(hash, size);
+        }
+    }
+}
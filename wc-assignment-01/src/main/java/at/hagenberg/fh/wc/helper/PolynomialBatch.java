@@ -0,0 +1,158 @@
+package at.hagenberg.fh.wc.helper;
+
+import java.util.Arrays;
+
+/**
+ * Batch variant of {@link PolynomialHelper#fit(double[])} and {@link PolynomialHelper#goldenSectionSearch} for many
+ * windows at once, e.g. when backfilling an archive.
+ * <p>
+ * A quartic fitted to five points by least squares passes through all of them, so instead of running an iterative
+ * fitter per window, the coefficients are the product of a fixed 5&times;5 operator, the inverse of the Vandermonde
+ * matrix of {@code x = 1..5}, with the magnitudes; the coefficients agree with the iterative fitter up to rounding. The
+ * golden section search then runs in lockstep over all windows, with results identical to the scalar search.
+ */
+public class PolynomialBatch {
+    /**
+     * The number of magnitudes a quartic is fitted to, i.e. the columns of the input matrix
+     */
+    public static final int POINTS = 5;
+
+    private static final double GOLDEN_RATIO = (Math.sqrt(5) + 1) / 2;
+    private static final double[][] LEAST_SQUARES_OPERATOR = invertVandermonde();
+
+    private PolynomialBatch() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Fits a quartic to the magnitudes of every window
+     *
+     * @param magnitudes   A {@code count}&times;5 matrix in row-major order, row {@code k} holds
+     *                     {@code magnitudes[2..6]} of window {@code k}
+     * @param count        The number of windows
+     * @param coefficients Receives a {@code count}&times;5 matrix in row-major order with the coefficients of each
+     *                     window, highest degree first like {@link PolynomialHelper#fit(double[])}
+     */
+    public static void fit(double[] magnitudes, int count, double[] coefficients) {
+        var op = LEAST_SQUARES_OPERATOR;
+        for (int k = 0; k < count; k++) {
+            var row = k * POINTS;
+            var y0 = magnitudes[row];
+            var y1 = magnitudes[row + 1];
+            var y2 = magnitudes[row + 2];
+            var y3 = magnitudes[row + 3];
+            var y4 = magnitudes[row + 4];
+            for (int i = 0; i < POINTS; i++) {
+                var o = op[i];
+                coefficients[row + i] = o[0] * y0 + o[1] * y1 + o[2] * y2 + o[3] * y3 + o[4] * y4;
+            }
+        }
+    }
+
+    /**
+     * Searches the maximum of every window's quartic within {@code [a, b]}. The windows are searched in lockstep, one
+     * golden section step for all of them per pass, and every window stops where
+     * {@link PolynomialHelper#goldenSectionSearch} stops: the probes, the stopping test, the order in which the quartic
+     * is evaluated and the final midpoint are the same, so the results are identical to the scalar search and not just
+     * close. The interval shrinks by the same factor in every window, so they all finish in the same pass up to
+     * rounding. The lower bounds are kept in {@code argmax}, only the upper bounds need an array of their own.
+     *
+     * @param coefficients The {@code count}&times;5 coefficient matrix in row-major order, highest degree first, as
+     *                     written by {@link #fit(double[], int, double[])}
+     * @param count        The number of windows
+     * @param a            The lower bound of the search
+     * @param b            The upper bound of the search
+     * @param tol          The distance of the probes at which the search stops
+     * @param argmax       Receives the position of the maximum of each window
+     */
+    public static void argmax(double[] coefficients, int count, double a, double b, double tol, double[] argmax) {
+        var lower = argmax;
+        var upper = new double[count];
+        Arrays.fill(lower, 0, count, a);
+        Arrays.fill(upper, b);
+
+        var searching = true;
+        while (searching) {
+            searching = false;
+            for (int k = 0; k < count; k++) {
+                var lo = lower[k];
+                var hi = upper[k];
+                var c = hi - (hi - lo) / GOLDEN_RATIO;
+                var d = lo + (hi - lo) / GOLDEN_RATIO;
+                if (Math.abs(c - d) > tol) {
+                    // Keep the part of the interval that contains the larger value
+                    var row = k * POINTS;
+                    if (value(coefficients, row, c) > value(coefficients, row, d)) {
+                        upper[k] = d;
+                    } else {
+                        lower[k] = c;
+                    }
+                    searching = true;
+                }
+            }
+        }
+
+        for (int k = 0; k < count; k++) {
+            argmax[k] = (upper[k] + lower[k]) / 2;
+        }
+    }
+
+    /**
+     * Evaluates a quartic term by term like {@link PolynomialHelper}, which rounds differently than Horner's scheme
+     */
+    private static double value(double[] coefficients, int row, double x) {
+        double result = 0;
+        for (int i = 0; i < POINTS; i++) {
+            result += coefficients[row + i] * Math.pow(x, POINTS - 1 - i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Inverts the Vandermonde matrix {@code V[j][i] = x_j^(4 - i)} of {@code x = 1..5} by Gauss-Jordan elimination
+     */
+    private static double[][] invertVandermonde() {
+        var n = POINTS;
+        var m = new double[n][2 * n];
+        for (int j = 0; j < n; j++) {
+            var x = j + 1;
+            for (int i = 0; i < n; i++) {
+                m[j][i] = Math.pow(x, n - 1 - i);
+            }
+            m[j][n + j] = 1;
+        }
+
+        for (int col = 0; col < n; col++) {
+            var pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(m[row][col]) > Math.abs(m[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            var swap = m[col];
+            m[col] = m[pivot];
+            m[pivot] = swap;
+
+            var scale = m[col][col];
+            for (int i = 0; i < 2 * n; i++) {
+                m[col][i] /= scale;
+            }
+            for (int row = 0; row < n; row++) {
+                if (row != col && m[row][col] != 0) {
+                    var factor = m[row][col];
+                    for (int i = 0; i < 2 * n; i++) {
+                        m[row][i] -= factor * m[col][i];
+                    }
+                }
+            }
+        }
+
+        var inverse = new double[n][n];
+        for (int row = 0; row < n; row++) {
+            System.arraycopy(m[row], n, inverse[row], 0, n);
+        }
+
+        return inverse;
+    }
+}
@@ -5,6 +5,8 @@ import org.apache.commons.math3.fitting.WeightedObservedPoints;
 
 public class PolynomialHelper {
 
+    private static final int DEGREE = 4;
+
     private PolynomialHelper() {
         throw new IllegalStateException("Utility class");
     }
@@ -53,15 +55,20 @@ public class PolynomialHelper {
     public static double[] fit(double[] magnitude) {
         double[] xValues = {1, 2, 3, 4, 5};
         double[] yValues = {magnitude[2], magnitude[3], magnitude[4], magnitude[5], magnitude[6]};
-        var degree = 4;
 
         var obs = new WeightedObservedPoints();
         for (int i = 0; i < xValues.length; i++) {
             obs.add(xValues[i], yValues[i]);
         }
-        var fitter = PolynomialCurveFitter.create(degree);
 
-        return reverseArray(fitter.fit(obs.toList()));
+        return reverseArray(FitterHolder.FITTER.fit(obs.toList()));
+    }
+
+    /**
+     * Creates the fitter, and with it the optimizer classes of commons-math, on first use only
+     */
+    private static final class FitterHolder {
+        private static final PolynomialCurveFitter FITTER = PolynomialCurveFitter.create(DEGREE);
     }
 
     /**
@@ -0,0 +1,108 @@
+package at.hagenberg.fh.wc.io;
+
+import at.hagenberg.fh.wc.model.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Binary recording format: the magic number {@code WCGY}, a format version and then one record of four big-endian
+ * doubles ({@code time, wx, wy, wz}) per sample until the end of the stream. Unlike the CSV format, values round-trip
+ * exactly and nothing has to be parsed.
+ * <p>
+ * A record cut off at the end, e.g. by a writer that crashed, is dropped with a warning, the complete records before it
+ * are kept.
+ */
+public class BinaryRecording {
+    public static final String EXTENSION = ".bin";
+    static final int MAGIC = 0x57434759; // "WCGY"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    static final int RECORD_BYTES = 4 * Double.BYTES;
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryRecording.class);
+
+    private BinaryRecording() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Writes samples in the binary format
+     *
+     * @param samples The samples to write
+     * @param out     The stream to write to, not closed
+     * @return The number of written samples
+     * @throws IOException If writing fails
+     */
+    public static long write(Iterator<SensorData> samples, OutputStream out) throws IOException {
+        var data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+
+        long count = 0;
+        while (samples.hasNext()) {
+            var sample = samples.next();
+            data.writeDouble(sample.time());
+            data.writeDouble(sample.wx());
+            data.writeDouble(sample.wy());
+            data.writeDouble(sample.wz());
+            count++;
+        }
+        data.flush();
+
+        return count;
+    }
+
+    /**
+     * Reads all samples of a recording in the binary format
+     *
+     * @param in The stream to read from, not closed
+     * @return The samples
+     * @throws IOException If reading fails or the stream is not in the binary format
+     */
+    public static List<SensorData> read(InputStream in) throws IOException {
+        var data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a binary recording");
+        }
+        var version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary recording version " + version);
+        }
+
+        var samples = new ArrayList<SensorData>();
+        var record = ByteBuffer.allocate(RECORD_BYTES);
+        while (true) {
+            var length = data.readNBytes(record.array(), 0, RECORD_BYTES);
+            if (length < RECORD_BYTES) {
+                if (length > 0) {
+                    warnTruncated(samples.size(), length);
+                }
+                return samples;
+            }
+            samples.add(new SensorData(record.getDouble(0), record.getDouble(Double.BYTES),
+                    record.getDouble(2 * Double.BYTES), record.getDouble(3 * Double.BYTES)));
+        }
+    }
+
+    /**
+     * Reports a record cut off at the end of a recording, which both readers drop
+     *
+     * @param records The number of complete records before it
+     * @param length  The number of bytes of the incomplete record, less than {@link #RECORD_BYTES}
+     */
+    static void warnTruncated(long records, long length) {
+        LOGGER.warn("Binary recording is truncated, dropping {} bytes of an incomplete record after {} samples", length,
+                records);
+    }
+}
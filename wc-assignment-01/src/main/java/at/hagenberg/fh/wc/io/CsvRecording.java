@@ -0,0 +1,50 @@
+package at.hagenberg.fh.wc.io;
+
+import at.hagenberg.fh.wc.model.SensorData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * Writes recordings in the {@code time,wx,wy,wz} CSV format of the bundled data
+ */
+public class CsvRecording {
+    public static final String HEADER = "time,wx,wy,wz";
+
+    private CsvRecording() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Writes samples as CSV, preceded by the header line
+     *
+     * @param samples The samples to write
+     * @param out     The writer to write to, not closed
+     * @return The number of written samples
+     * @throws IOException If writing fails
+     */
+    public static long write(Iterator<SensorData> samples, Writer out) throws IOException {
+        var writer = new BufferedWriter(out, 1 << 16);
+        writer.write(HEADER);
+        writer.newLine();
+
+        long count = 0;
+        var line = new StringBuilder(64);
+        while (samples.hasNext()) {
+            var sample = samples.next();
+            line.setLength(0);
+            line.append(sample.time()).append(',')
+                    .append(sample.wx()).append(',')
+                    .append(sample.wy()).append(',')
+                    .append(sample.wz());
+            writer.append(line);
+            writer.newLine();
+            count++;
+        }
+        writer.flush();
+
+        return count;
+    }
+}
@@ -0,0 +1,40 @@
+package at.hagenberg.fh.wc.io;
+
+import at.hagenberg.fh.wc.model.SensorData;
+
+import java.util.List;
+
+/**
+ * Recording held on the heap in a single array, with the samples laid out one after another like the records of the
+ * binary format
+ */
+public final class HeapRecording implements SampleSource {
+    private static final int COLUMNS = 4;
+
+    private final double[] samples;
+
+    /**
+     * @param values The samples, copied into the recording
+     */
+    public HeapRecording(List<SensorData> values) {
+        samples = new double[values.size() * COLUMNS];
+        var offset = 0;
+        for (SensorData sample : values) {
+            samples[offset + TIME] = sample.time();
+            samples[offset + WX] = sample.wx();
+            samples[offset + WY] = sample.wy();
+            samples[offset + WZ] = sample.wz();
+            offset += COLUMNS;
+        }
+    }
+
+    @Override
+    public long size() {
+        return samples.length / COLUMNS;
+    }
+
+    @Override
+    public double get(long sample, int column) {
+        return samples[(int) sample * COLUMNS + column];
+    }
+}
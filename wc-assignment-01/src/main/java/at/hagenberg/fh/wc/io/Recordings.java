@@ -0,0 +1,152 @@
+package at.hagenberg.fh.wc.io;
+
+import at.hagenberg.fh.wc.model.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads recordings from the file system or the classpath
+ */
+public class Recordings {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Recordings.class);
+    private static final String OFF_HEAP_RECORDING = "at.hagenberg.fh.wc.io.OffHeapRecording";
+
+    private Recordings() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Opens a UTF-8 reader on a file or resource, see {@link #openStream(String)}
+     *
+     * @param filename The path of the file or the name of the resource
+     * @return A reader on the data
+     * @throws FileNotFoundException If neither a file nor a resource with that name exists
+     */
+    private static BufferedReader openData(String filename) throws IOException {
+        return new BufferedReader(new InputStreamReader(openStream(filename), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a file from the file system, falling back to a resource on the classpath
+     *
+     * @param filename The path of the file or the name of the resource
+     * @return A stream on the data
+     * @throws FileNotFoundException If neither a file nor a resource with that name exists
+     */
+    public static InputStream openStream(String filename) throws IOException {
+        var path = Path.of(filename);
+        if (Files.exists(path)) {
+            return Files.newInputStream(path);
+        }
+
+        var stream = Recordings.class.getClassLoader().getResourceAsStream(filename);
+        if (stream == null) {
+            throw new FileNotFoundException("File not found: " + filename);
+        }
+        return stream;
+    }
+
+    /**
+     * Reads in a recording in the binary format if its name ends with {@code .bin}, as CSV otherwise
+     *
+     * @param filename The path of the file or the name of the resource
+     * @return The sensor data
+     */
+    public static List<SensorData> read(String filename) {
+        if (!filename.endsWith(BinaryRecording.EXTENSION)) {
+            return readCSV(filename);
+        }
+
+        try (var stream = openStream(filename)) {
+            return BinaryRecording.read(stream);
+        } catch (IOException e) {
+            LOGGER.error("{}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Opens a recording for random access. A binary recording on the file system is mapped off-heap by
+     * {@code OffHeapRecording} if this JVM can load it, which needs Java 21 started with {@code --enable-preview}. The
+     * class is looked up by name so that nothing else links it; every other recording is read onto the heap.
+     *
+     * @param filename The path of the file or the name of the resource
+     * @return The samples, which must be closed
+     * @throws IOException If a binary recording cannot be mapped
+     */
+    public static SampleSource open(String filename) throws IOException {
+        var path = Path.of(filename);
+        if (!filename.endsWith(BinaryRecording.EXTENSION) || !Files.exists(path)) {
+            return new HeapRecording(read(filename));
+        }
+
+        Method map;
+        try {
+            map = Class.forName(OFF_HEAP_RECORDING).getMethod("map", Path.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.info("Reading {} onto the heap, it cannot be mapped: {}", filename, e.getMessage());
+            return new HeapRecording(read(filename));
+        }
+
+        try {
+            return (SampleSource) map.invoke(null, path);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Could not map " + filename, e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not map " + filename, e);
+        }
+    }
+
+    /**
+     * Reads in data from a CSV file with the sperator 's'
+     *
+     * @param filename The path of the file or the name of the resource
+     * @return The sensor data
+     */
+    private static List<SensorData> readCSV(String filename) {
+        String line;
+        String delimiter = ",";
+        List<SensorData> data = new ArrayList<>();
+
+        try (BufferedReader br = openData(filename)) {
+            // Skip the header line (time, wx, wy, wz)
+            var firstLineSkipped = false;
+
+            while ((line = br.readLine()) != null) {
+                if (!firstLineSkipped) {
+                    firstLineSkipped = true;
+                    continue;
+                }
+                String[] values = line.split(delimiter);
+
+                double time = Double.parseDouble(values[0]);
+                double wx = Double.parseDouble(values[1]);
+                double wy = Double.parseDouble(values[2]);
+                double wz = Double.parseDouble(values[3]);
+
+                SensorData sensorData = new SensorData(time, wx, wy, wz);
+                data.add(sensorData);
+            }
+        } catch (IOException e) {
+            LOGGER.error("{}", e.getMessage());
+        }
+
+        return data;
+    }
+}
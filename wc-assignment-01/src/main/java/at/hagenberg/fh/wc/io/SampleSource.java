@@ -0,0 +1,29 @@
+package at.hagenberg.fh.wc.io;
+
+/**
+ * Random access to the samples of a recording, wherever they are held. Every sample has the columns {@link #TIME},
+ * {@link #WX}, {@link #WY} and {@link #WZ} like a record of the binary format. Closing a source releases the memory it
+ * holds outside the heap, if any.
+ */
+public interface SampleSource extends AutoCloseable {
+    int TIME = 0;
+    int WX = 1;
+    int WY = 2;
+    int WZ = 3;
+
+    /**
+     * @return The number of samples
+     */
+    long size();
+
+    /**
+     * @param sample The index of the sample
+     * @param column {@link #TIME}, {@link #WX}, {@link #WY} or {@link #WZ}
+     * @return The value of the sample in that column
+     */
+    double get(long sample, int column);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,100 @@
+package at.hagenberg.fh.wc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram. Every power of two is split into 64 linear sub-buckets,
+ * which keeps the relative error below 1.6%. Recording a value does not allocate and is safe to call from multiple
+ * threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final long SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1L;
+    // Values above ~68 seconds are clamped into the last bucket
+    private static final long HIGHEST_TRACKABLE_VALUE = (1L << 36) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(HIGHEST_TRACKABLE_VALUE) + 1);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    private static int bucketIndex(long value) {
+        var magnitude = 63 - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+        var shift = magnitude - (SUB_BUCKET_BITS - 1);
+        var subBucket = (int) (value >>> shift);
+
+        return shift * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        var shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        var subBucket = (long) (index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT);
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a single value
+     *
+     * @param value The value in nanoseconds, negative values are treated as zero
+     */
+    public void record(long value) {
+        var clamped = Math.min(Math.max(value, 0), HIGHEST_TRACKABLE_VALUE);
+        counts.incrementAndGet(bucketIndex(clamped));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(clamped);
+        maxValue.accumulateAndGet(clamped, Math::max);
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall
+     *
+     * @param percentile The percentile in the range [0, 100]
+     * @return The value in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long percentile(double percentile) {
+        var count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        var target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+
+        long cumulative = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), maxValue.get());
+            }
+        }
+
+        return maxValue.get();
+    }
+
+    public long count() {
+        return totalCount.get();
+    }
+
+    public double mean() {
+        var count = totalCount.get();
+        return count == 0 ? 0 : (double) totalSum.get() / count;
+    }
+
+    public long max() {
+        return maxValue.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+}
@@ -0,0 +1,13 @@
+package at.hagenberg.fh.wc.metrics;
+
+/**
+ * The stages of the step detection that are timed individually
+ */
+public enum Stage {
+    PARSE,
+    AXIS_SELECTION,
+    FFT,
+    FIT,
+    ARGMAX,
+    ACCUMULATION
+}
@@ -0,0 +1,34 @@
+package at.hagenberg.fh.wc.metrics;
+
+public class StageMetrics implements StageMetricsMBean {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    LatencyHistogram histogram() {
+        return histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.count();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        return histogram.mean();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return histogram.percentile(50);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return histogram.percentile(99);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return histogram.max();
+    }
+}
@@ -0,0 +1,16 @@
+package at.hagenberg.fh.wc.metrics;
+
+/**
+ * JMX view on the latency of a single {@link Stage}
+ */
+public interface StageMetricsMBean {
+    long getCount();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getMaxNanos();
+}
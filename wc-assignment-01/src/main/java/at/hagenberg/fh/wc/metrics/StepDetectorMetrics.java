@@ -0,0 +1,169 @@
+package at.hagenberg.fh.wc.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms of the step detection, published on the platform MBean server under
+ * {@code at.hagenberg.fh.wc:type=StepDetector}. Recording can be switched on and off at runtime through the
+ * {@code Enabled} attribute or initially with the system property {@code wc.metrics.enabled}.
+ * <p>
+ * Usage on the hot path:
+ * <pre>{@code
+ * var start = metrics.start();
+ * // ... work ...
+ * metrics.record(Stage.FFT, start);
+ * }</pre>
+ */
+public class StepDetectorMetrics implements StepDetectorMetricsMBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepDetectorMetrics.class);
+    private static final String DOMAIN = "at.hagenberg.fh.wc";
+    private static final StepDetectorMetrics INSTANCE = new StepDetectorMetrics();
+
+    private final Map<Stage, StageMetrics> stages = new EnumMap<>(Stage.class);
+    private final LatencyHistogram windowLatency = new LatencyHistogram();
+    private final AtomicLong windowCount = new AtomicLong();
+    private final AtomicLong gatePassCount = new AtomicLong();
+    private final AtomicLong firstWindowNanos = new AtomicLong();
+    private volatile boolean enabled = Boolean.parseBoolean(System.getProperty("wc.metrics.enabled", "true"));
+
+    private StepDetectorMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageMetrics());
+        }
+        // Starting the platform MBean server takes longer than a whole run on a small recording, so it must not
+        // delay the first result
+        Thread.ofPlatform().daemon().name("metrics-registration").start(this::register);
+    }
+
+    public static StepDetectorMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private void register() {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(DOMAIN + ":type=StepDetector,name=Windows"));
+            for (var entry : stages.entrySet()) {
+                var name = new ObjectName(DOMAIN + ":type=StepDetector,name=Stage,stage=" + entry.getKey());
+                server.registerMBean(entry.getValue(), name);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Could not register step detector metrics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return The start timestamp to pass to {@link #record(Stage, long)}, or 0 if recording is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since {@code start} for the given stage
+     *
+     * @param stage The stage that has just finished
+     * @param start The value returned by {@link #start()} when the stage began
+     */
+    public void record(Stage stage, long start) {
+        if (start != 0 && enabled) {
+            stages.get(stage).histogram().record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a fully processed window
+     *
+     * @param start      The value returned by {@link #start()} when the window began
+     * @param gatePassed Whether the window was counted as walking
+     */
+    public void recordWindow(long start, boolean gatePassed) {
+        if (start == 0 || !enabled) {
+            return;
+        }
+        var now = System.nanoTime();
+        firstWindowNanos.compareAndSet(0, start);
+        windowLatency.record(now - start);
+        windowCount.incrementAndGet();
+        if (gatePassed) {
+            gatePassCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getWindowCount() {
+        return windowCount.get();
+    }
+
+    @Override
+    public long getGatePassCount() {
+        return gatePassCount.get();
+    }
+
+    @Override
+    public double getGatePassRate() {
+        var windows = windowCount.get();
+        return windows == 0 ? 0 : (double) gatePassCount.get() / windows;
+    }
+
+    @Override
+    public double getWindowsPerSecond() {
+        var first = firstWindowNanos.get();
+        if (first == 0) {
+            return 0;
+        }
+        var elapsedSeconds = (System.nanoTime() - first) / 1e9;
+
+        return elapsedSeconds <= 0 ? 0 : windowCount.get() / elapsedSeconds;
+    }
+
+    @Override
+    public long getWindowLatencyP50Nanos() {
+        return windowLatency.percentile(50);
+    }
+
+    @Override
+    public long getWindowLatencyP99Nanos() {
+        return windowLatency.percentile(99);
+    }
+
+    @Override
+    public long getWindowLatencyMaxNanos() {
+        return windowLatency.max();
+    }
+
+    @Override
+    public void reset() {
+        windowLatency.reset();
+        stages.values().forEach(stage -> stage.histogram().reset());
+        windowCount.set(0);
+        gatePassCount.set(0);
+        firstWindowNanos.set(0);
+    }
+
+    /**
+     * @param stage The stage to look up
+     * @return The latency metrics of the given stage
+     */
+    public StageMetrics stage(Stage stage) {
+        return stages.get(stage);
+    }
+}
@@ -0,0 +1,32 @@
+package at.hagenberg.fh.wc.metrics;
+
+/**
+ * JMX view on the step detector as a whole
+ */
+public interface StepDetectorMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getWindowCount();
+
+    long getGatePassCount();
+
+    /**
+     * @return The share of windows that passed the {@code wc > w0 && wc > 10} gate
+     */
+    double getGatePassRate();
+
+    /**
+     * @return The processed windows per second since the last reset
+     */
+    double getWindowsPerSecond();
+
+    long getWindowLatencyP50Nanos();
+
+    long getWindowLatencyP99Nanos();
+
+    long getWindowLatencyMaxNanos();
+
+    void reset();
+}
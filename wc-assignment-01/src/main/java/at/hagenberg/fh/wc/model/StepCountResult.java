@@ -0,0 +1,12 @@
+package at.hagenberg.fh.wc.model;
+
+import java.util.List;
+
+/**
+ * The outcome of counting the steps in one recording
+ *
+ * @param stepCount The total step count
+ * @param events    The windows that were counted as walking, may be empty if they were not kept
+ */
+public record StepCountResult(double stepCount, List<StepEvent> events) {
+}
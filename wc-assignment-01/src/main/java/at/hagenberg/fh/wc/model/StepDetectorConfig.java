@@ -0,0 +1,78 @@
+package at.hagenberg.fh.wc.model;
+
+import at.hagenberg.fh.wc.helper.HashHelper;
+
+/**
+ * Parameters of the step detection by X. Kang et al.
+ *
+ * @param samplingFrequency     The sampling frequency of the gyroscope in Hz
+ * @param windowSize            The number of samples per FFT window, must be a power of two
+ * @param slidingWindowDuration The hop between two windows in seconds
+ * @param minWindowMagnitude    The mean magnitude the step band has to exceed for a window to count as walking
+ * @param searchLowerBound      The lower bound of the argmax search over the fitted polynomial
+ * @param searchUpperBound      The upper bound of the argmax search over the fitted polynomial
+ * @param searchTolerance       The tolerance of the argmax search
+ */
+public record StepDetectorConfig(float samplingFrequency, int windowSize, float slidingWindowDuration,
+                                 double minWindowMagnitude, double searchLowerBound, double searchUpperBound,
+                                 double searchTolerance) {
+    public static final StepDetectorConfig DEFAULT = new StepDetectorConfig(100f, 512, 1.25f, 10, 1, 5, 1e-5);
+    /**
+     * The version of the detection algorithm, to be increased with every change of the code that changes step counts,
+     * so that cached results, snapshots and feature files of the previous version are no longer used
+     */
+    public static final int ALGORITHM_VERSION = 1;
+
+    /**
+     * @return The frequency resolution of one FFT bin in Hz
+     */
+    public float resolution() {
+        return samplingFrequency / windowSize;
+    }
+
+    /**
+     * @return The hop between two windows in samples
+     */
+    public int slidingWindowLength() {
+        return (int) (slidingWindowDuration * samplingFrequency);
+    }
+
+    /**
+     * The gate of the detection: a window counts as walking if its step band dominates the low band and exceeds the
+     * minimum magnitude
+     *
+     * @param w0 The mean magnitude of the low band (bins 0 and 1)
+     * @param wc The mean magnitude of the step band (bins 2 to 6)
+     * @return Whether the window counts as walking
+     */
+    public boolean isWalking(double w0, double wc) {
+        return wc > w0 && wc > minWindowMagnitude;
+    }
+
+    /**
+     * @param argmax The position of the maximum of the quartic fitted to the step band, with bin 2 at 1
+     * @return The steps made during the hop of a walking window
+     */
+    public double steps(double argmax) {
+        double fw = resolution() * (argmax + 1);
+
+        return slidingWindowDuration * fw;
+    }
+
+    /**
+     * @return A hash over all parameters and the {@link #ALGORITHM_VERSION}, changes whenever a parameter or the code
+     * that influences the step count changes
+     */
+    public long hash() {
+        var hash = HashHelper.mix(0, ALGORITHM_VERSION);
+        hash = HashHelper.mix(hash, Float.floatToIntBits(samplingFrequency));
+        hash = HashHelper.mix(hash, windowSize);
+        hash = HashHelper.mix(hash, Float.floatToIntBits(slidingWindowDuration));
+        hash = HashHelper.mix(hash, Double.doubleToLongBits(minWindowMagnitude));
+        hash = HashHelper.mix(hash, Double.doubleToLongBits(searchLowerBound));
+        hash = HashHelper.mix(hash, Double.doubleToLongBits(searchUpperBound));
+        hash = HashHelper.mix(hash, Double.doubleToLongBits(searchTolerance));
+
+        return HashHelper.finish(hash, 8);
+    }
+}
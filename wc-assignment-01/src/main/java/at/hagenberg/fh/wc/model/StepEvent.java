@@ -0,0 +1,11 @@
+package at.hagenberg.fh.wc.model;
+
+/**
+ * A window that was counted as walking
+ *
+ * @param time      The timestamp of the last sample of the window
+ * @param steps     The steps the window added
+ * @param stepCount The total step count after the window
+ */
+public record StepEvent(double time, double steps, double stepCount) {
+}
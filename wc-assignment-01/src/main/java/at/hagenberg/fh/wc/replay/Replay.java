@@ -0,0 +1,75 @@
+package at.hagenberg.fh.wc.replay;
+
+import at.hagenberg.fh.wc.detector.StreamingStepDetector;
+import at.hagenberg.fh.wc.metrics.LatencyHistogram;
+import at.hagenberg.fh.wc.model.SensorData;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds a recording sample by sample into a {@link StreamingStepDetector}, paced by the recording's own timestamps
+ * divided by a speed factor. The latency of every step event is measured from the moment its last sample was due to
+ * arrive, so delays caused by an overloaded host are part of it.
+ */
+public class Replay implements Callable<ReplayResult> {
+    /**
+     * Speed factor that emits the samples without any pause
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final String name;
+    private final List<SensorData> recording;
+    private final double speed;
+    private final StepDetectorConfig config;
+    private final LatencyHistogram latency;
+
+    /**
+     * @param name      The name of the replay used in reports
+     * @param recording The samples to replay
+     * @param speed     The speed factor, 1 replays in real time, {@link #AS_FAST_AS_POSSIBLE} without pauses
+     * @param config    The parameters of the detection
+     * @param latency   The histogram the event latencies are recorded into, may be shared between replays
+     */
+    public Replay(String name, List<SensorData> recording, double speed, StepDetectorConfig config,
+                  LatencyHistogram latency) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+        this.name = name;
+        this.recording = recording;
+        this.speed = speed;
+        this.config = config;
+        this.latency = latency;
+    }
+
+    @Override
+    public ReplayResult call() {
+        var detector = new StreamingStepDetector(config);
+        var paced = speed != AS_FAST_AS_POSSIBLE && !recording.isEmpty();
+        var firstTime = recording.isEmpty() ? 0 : recording.get(0).time();
+        var startNanos = System.nanoTime();
+        long events = 0;
+
+        for (SensorData sample : recording) {
+            long arrival;
+            if (paced) {
+                arrival = startNanos + (long) ((sample.time() - firstTime) / speed * 1e9);
+                for (var wait = arrival - System.nanoTime(); wait > 0; wait = arrival - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                arrival = System.nanoTime();
+            }
+
+            if (detector.accept(sample) != null) {
+                latency.record(System.nanoTime() - arrival);
+                events++;
+            }
+        }
+
+        return new ReplayResult(name, recording.size(), events, detector.stepCount(), System.nanoTime() - startNanos);
+    }
+}
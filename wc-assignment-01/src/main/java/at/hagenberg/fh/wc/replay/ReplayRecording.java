@@ -0,0 +1,62 @@
+package at.hagenberg.fh.wc.replay;
+
+import at.hagenberg.fh.wc.io.Recordings;
+import at.hagenberg.fh.wc.metrics.LatencyHistogram;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays a recording concurrently into many streaming detectors and reports the end-to-end latency from sample arrival
+ * to step event. Usage: {@code ReplayRecording [recording] [speed|max] [concurrent replays]}, by default
+ * {@code data/data2.csv} is replayed once at 10x speed.
+ */
+public class ReplayRecording {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayRecording.class);
+
+    public static void main(String[] args) throws InterruptedException {
+        var filename = args.length > 0 ? args[0] : "data/data2.csv";
+        var speed = args.length > 1
+                ? "max".equals(args[1]) ? Replay.AS_FAST_AS_POSSIBLE : Double.parseDouble(args[1])
+                : 10;
+        var concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        if (concurrency < 1) {
+            LOGGER.error("Usage: ReplayRecording [recording] [speed|max] [concurrent replays], with at least one replay");
+            return;
+        }
+
+        var recording = Recordings.read(filename);
+        var latency = new LatencyHistogram();
+        LOGGER.info("Replaying {} ({} samples) {} times at {} speed", filename, recording.size(), concurrency,
+                speed == Replay.AS_FAST_AS_POSSIBLE ? "maximum" : speed + "x");
+
+        var results = new ArrayList<ReplayResult>();
+        var startNanos = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<ReplayResult>>();
+            for (int i = 0; i < concurrency; i++) {
+                var replay = new Replay("replay-" + i, recording, speed, StepDetectorConfig.DEFAULT, latency);
+                futures.add(executor.submit(replay));
+            }
+            for (Future<ReplayResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            LOGGER.error("Replay failed: {}", e.getCause().getMessage());
+            return;
+        }
+        var elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        var samples = results.stream().mapToLong(ReplayResult::samples).sum();
+        LOGGER.info("{} steps per replay, {} step events in total", results.get(0).stepCount(),
+                results.stream().mapToLong(ReplayResult::events).sum());
+        LOGGER.info("{} samples/s over {} s", samples / elapsedSeconds, elapsedSeconds);
+        LOGGER.info("Event latency p50 {} us, p99 {} us, max {} us", latency.percentile(50) / 1e3,
+                latency.percentile(99) / 1e3, latency.max() / 1e3);
+    }
+}
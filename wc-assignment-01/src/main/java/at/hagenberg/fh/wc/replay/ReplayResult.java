@@ -0,0 +1,13 @@
+package at.hagenberg.fh.wc.replay;
+
+/**
+ * The outcome of a single {@link Replay}
+ *
+ * @param name         The name of the replay
+ * @param samples      The number of replayed samples
+ * @param events       The number of emitted step events
+ * @param stepCount    The final step count
+ * @param elapsedNanos The wall clock time the replay took
+ */
+public record ReplayResult(String name, long samples, long events, double stepCount, long elapsedNanos) {
+}
@@ -0,0 +1,103 @@
+package at.hagenberg.fh.wc.server;
+
+import at.hagenberg.fh.wc.helper.HashHelper;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from device ids to session slots on primitive arrays, so that lookups do not box the id.
+ * Collisions are resolved by linear probing, removals shift the following entries back instead of leaving tombstones.
+ * Not thread-safe.
+ */
+class DeviceIndex {
+    private static final int EMPTY = -1;
+
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    DeviceIndex(int expectedSize) {
+        var capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private int home(long deviceId) {
+        return (int) HashHelper.finish(deviceId, 0) & mask;
+    }
+
+    /**
+     * @return The slot of the device, or -1 if it has none
+     */
+    int get(long deviceId) {
+        for (int i = home(deviceId); slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == deviceId) {
+                return slots[i];
+            }
+        }
+
+        return EMPTY;
+    }
+
+    void put(long deviceId, int slot) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        var i = home(deviceId);
+        while (slots[i] != EMPTY && keys[i] != deviceId) {
+            i = (i + 1) & mask;
+        }
+        if (slots[i] == EMPTY) {
+            size++;
+        }
+        keys[i] = deviceId;
+        slots[i] = slot;
+    }
+
+    void remove(long deviceId) {
+        var i = home(deviceId);
+        while (slots[i] != EMPTY && keys[i] != deviceId) {
+            i = (i + 1) & mask;
+        }
+        if (slots[i] == EMPTY) {
+            return;
+        }
+
+        // Move later entries of the probe sequence into the gap unless they would end up before their home
+        for (int j = (i + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+            var k = home(keys[j]);
+            var between = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+            if (!between) {
+                keys[i] = keys[j];
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        slots[i] = EMPTY;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldSlots = slots;
+        allocate(keys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                put(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+}
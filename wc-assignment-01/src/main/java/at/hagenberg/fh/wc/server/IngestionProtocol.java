@@ -0,0 +1,69 @@
+package at.hagenberg.fh.wc.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary wire format between wearables and the {@link IngestionServer}, all values big-endian.
+ * <p>
+ * A frame from a device consists of the length of the rest of the frame ({@code int}), the device id ({@code long}),
+ * the number of samples ({@code int}) and then {@code time, wx, wy, wz} as four doubles per sample. Over UDP every
+ * datagram carries exactly one frame.
+ * <p>
+ * For every frame the server answers with the device id ({@code long}), the number of samples received from that
+ * device so far ({@code long}) and its running step count ({@code double}).
+ */
+public class IngestionProtocol {
+    public static final int LENGTH_BYTES = Integer.BYTES;
+    public static final int HEADER_BYTES = Long.BYTES + Integer.BYTES;
+    public static final int SAMPLE_BYTES = 4 * Double.BYTES;
+    public static final int RESPONSE_BYTES = Long.BYTES + Long.BYTES + Double.BYTES;
+    public static final int MAX_SAMPLES_PER_FRAME = 128;
+    public static final int MAX_FRAME_BYTES = LENGTH_BYTES + HEADER_BYTES + MAX_SAMPLES_PER_FRAME * SAMPLE_BYTES;
+
+    private IngestionProtocol() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Writes a frame with the samples {@code [offset, offset + count)} of the given arrays
+     */
+    public static void writeFrame(ByteBuffer out, long deviceId, double[] time, double[] wx, double[] wy, double[] wz,
+                                  int offset, int count) {
+        if (count > MAX_SAMPLES_PER_FRAME) {
+            throw new IllegalArgumentException("At most " + MAX_SAMPLES_PER_FRAME + " samples fit into a frame");
+        }
+        out.putInt(HEADER_BYTES + count * SAMPLE_BYTES);
+        out.putLong(deviceId);
+        out.putInt(count);
+        for (int i = offset; i < offset + count; i++) {
+            out.putDouble(time[i]);
+            out.putDouble(wx[i]);
+            out.putDouble(wy[i]);
+            out.putDouble(wz[i]);
+        }
+    }
+
+    public static void writeResponse(ByteBuffer out, long deviceId, long sampleCount, double stepCount) {
+        out.putLong(deviceId);
+        out.putLong(sampleCount);
+        out.putDouble(stepCount);
+    }
+
+    /**
+     * @param length The length field of a frame
+     * @return Whether the length belongs to a well-formed frame
+     */
+    static boolean isValidLength(int length) {
+        return length >= HEADER_BYTES && length <= MAX_FRAME_BYTES - LENGTH_BYTES
+                && (length - HEADER_BYTES) % SAMPLE_BYTES == 0;
+    }
+
+    /**
+     * @param frame  The frame without its length field, positioned at the device id
+     * @param length The length field of the frame, already checked by {@link #isValidLength(int)}
+     * @return Whether the sample count of the frame matches its length
+     */
+    static boolean isValidCount(ByteBuffer frame, int length) {
+        return frame.getInt(frame.position() + Long.BYTES) == (length - HEADER_BYTES) / SAMPLE_BYTES;
+    }
+}
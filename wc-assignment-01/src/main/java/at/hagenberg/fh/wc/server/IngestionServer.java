@@ -0,0 +1,313 @@
+package at.hagenberg.fh.wc.server;
+
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP and UDP server that ingests gyroscope frames (see {@link IngestionProtocol}) from many devices at once and answers
+ * every frame with the device's running step count. One acceptor thread accepts connections and serves UDP, accepted
+ * connections are distributed round-robin over worker threads that each run their own NIO selector. Sessions of devices
+ * that stay silent for longer than the idle time are evicted.
+ * <p>
+ * Usage: {@code IngestionServer [port] [workers]}, with {@code -Dwc.checkpoint.file=<path>} the sessions are restored
+ * from that file on startup and written to it every {@code wc.checkpoint.intervalSeconds} (default 60) and on shutdown.
+ */
+public class IngestionServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestionServer.class);
+    // Responses for frames that a slow client has not read yet, beyond that the client is disconnected
+    private static final int PENDING_RESPONSES = 64;
+
+    private static final long EVICTION_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final SessionStore sessions;
+    private final long idleNanos;
+    private final ServerSocketChannel serverChannel;
+    private final DatagramChannel datagramChannel;
+    private final Selector acceptSelector;
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running = true;
+    private int nextWorker;
+
+    /**
+     * Binds the server, it only starts serving after {@link #start()}
+     *
+     * @param port        The TCP and UDP port, 0 for an ephemeral port
+     * @param workerCount The number of selector threads for TCP connections
+     * @param sessions    The per-device detection state
+     * @param idleNanos   The time without data after which a device's session is evicted
+     * @throws IOException If the port cannot be bound
+     */
+    public IngestionServer(int port, int workerCount, SessionStore sessions, long idleNanos) throws IOException {
+        this.sessions = sessions;
+        this.idleNanos = idleNanos;
+        this.acceptSelector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 4096);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        this.datagramChannel = DatagramChannel.open();
+        datagramChannel.bind(serverChannel.getLocalAddress());
+        datagramChannel.configureBlocking(false);
+        datagramChannel.register(acceptSelector, SelectionKey.OP_READ);
+
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(new Worker(Selector.open()));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        var port = args.length > 0 ? Integer.parseInt(args[0]) : 7500;
+        var workerCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        var idleNanos = TimeUnit.MINUTES.toNanos(10);
+        var sessions = new SessionStore(StepDetectorConfig.DEFAULT);
+        var checkpointFile = System.getProperty("wc.checkpoint.file");
+        var checkpoint = checkpointFile == null ? null : new SessionCheckpoint(sessions, Path.of(checkpointFile));
+        if (checkpoint != null) {
+            checkpoint.restore();
+        }
+
+        var server = new IngestionServer(port, workerCount, sessions, idleNanos);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        }));
+        server.start();
+        if (checkpoint != null) {
+            checkpoint.start(Long.getLong("wc.checkpoint.intervalSeconds", 60), TimeUnit.SECONDS);
+        }
+        LOGGER.info("Listening on port {} with {} workers", server.port(), workerCount);
+    }
+
+    public int port() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    public void start() {
+        threads.add(Thread.ofPlatform().name("ingestion-acceptor").start(this::acceptLoop));
+        for (int i = 0; i < workers.size(); i++) {
+            threads.add(Thread.ofPlatform().name("ingestion-worker-" + i).start(workers.get(i)::run));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        acceptSelector.wakeup();
+        workers.forEach(worker -> worker.selector.wakeup());
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeQuietly(serverChannel);
+        closeQuietly(datagramChannel);
+    }
+
+    private void acceptLoop() {
+        var datagram = ByteBuffer.allocate(IngestionProtocol.MAX_FRAME_BYTES);
+        var response = ByteBuffer.allocate(IngestionProtocol.RESPONSE_BYTES);
+
+        var nextEviction = System.nanoTime() + EVICTION_INTERVAL_NANOS;
+
+        try (acceptSelector) {
+            while (running) {
+                acceptSelector.select(EVICTION_INTERVAL_NANOS / 1_000_000);
+                if (System.nanoTime() - nextEviction >= 0) {
+                    var evicted = sessions.evictIdle(idleNanos);
+                    if (evicted > 0) {
+                        LOGGER.debug("Evicted {} idle sessions", evicted);
+                    }
+                    nextEviction = System.nanoTime() + EVICTION_INTERVAL_NANOS;
+                }
+                for (var key : acceptSelector.selectedKeys()) {
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            receive(datagram, response);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // Only the datagram or connection at fault is lost, the acceptor keeps running
+                        LOGGER.warn("Could not serve {}: {}", key.channel(), e.getMessage());
+                    }
+                }
+                acceptSelector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            LOGGER.error("Acceptor stopped: {}", e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            var worker = workers.get(nextWorker);
+            nextWorker = (nextWorker + 1) % workers.size();
+            worker.pending.add(channel);
+            worker.selector.wakeup();
+        }
+    }
+
+    private void receive(ByteBuffer datagram, ByteBuffer response) throws IOException {
+        datagram.clear();
+        var sender = datagramChannel.receive(datagram);
+        if (sender == null) {
+            return;
+        }
+        datagram.flip();
+        if (datagram.remaining() < IngestionProtocol.LENGTH_BYTES
+                || datagram.getInt() != datagram.remaining()
+                || !IngestionProtocol.isValidLength(datagram.remaining())
+                || !IngestionProtocol.isValidCount(datagram, datagram.remaining())) {
+            LOGGER.debug("Dropping malformed datagram from {}", sender);
+            return;
+        }
+
+        response.clear();
+        sessions.process(datagram, response);
+        response.flip();
+        datagramChannel.send(response, sender);
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close channel: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A selector thread that owns a subset of the TCP connections
+     */
+    private final class Worker {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+
+        private Worker(Selector selector) {
+            this.selector = selector;
+        }
+
+        private void run() {
+            try (selector) {
+                while (running) {
+                    selector.select();
+                    registerPending();
+                    for (var key : selector.selectedKeys()) {
+                        var connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            LOGGER.debug("Closing connection: {}", e.getMessage());
+                            connection.close();
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+                selector.keys().forEach(key -> ((Connection) key.attachment()).close());
+            } catch (IOException | ClosedSelectorException e) {
+                LOGGER.error("Worker stopped: {}", e.getMessage());
+            }
+        }
+
+        private void registerPending() throws IOException {
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                var key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key));
+            }
+        }
+    }
+
+    /**
+     * The buffers of one TCP connection
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocate(IngestionProtocol.MAX_FRAME_BYTES);
+        private final ByteBuffer out = ByteBuffer.allocate(PENDING_RESPONSES * IngestionProtocol.RESPONSE_BYTES);
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        private void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+
+            in.flip();
+            while (in.remaining() >= IngestionProtocol.LENGTH_BYTES) {
+                var length = in.getInt(in.position());
+                if (!IngestionProtocol.isValidLength(length)) {
+                    throw new IOException("Malformed frame of length " + length);
+                }
+                if (in.remaining() < IngestionProtocol.LENGTH_BYTES + length) {
+                    break;
+                }
+                if (out.remaining() < IngestionProtocol.RESPONSE_BYTES) {
+                    throw new IOException("Client does not read its responses");
+                }
+
+                in.position(in.position() + IngestionProtocol.LENGTH_BYTES);
+                if (!IngestionProtocol.isValidCount(in, length)) {
+                    throw new IOException("Sample count does not match frame of length " + length);
+                }
+                var end = in.position() + length;
+                sessions.process(in, out);
+                in.position(end);
+            }
+            in.compact();
+            flush();
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            key.interestOps(out.position() > 0
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        }
+
+        private void close() {
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package at.hagenberg.fh.wc.server;
+
+import at.hagenberg.fh.wc.metrics.LatencyHistogram;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+import at.hagenberg.fh.wc.synthetic.GyroscopeGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates many wearables that stream synthetic gyroscope data to an {@link IngestionServer} over TCP, one virtual
+ * thread per device. Every device sends a frame of 25 samples every 250 ms of recording time divided by the speed
+ * factor and waits for the step count in return; the round trip times are reported at the end.
+ * <p>
+ * Usage: {@code LoadGenerator [host:port|embedded] [devices] [seconds of recording per device] [speed|max]}. With
+ * {@code embedded} (the default) a server is started on an ephemeral local port first. Many devices need a raised
+ * open file limit on both ends.
+ */
+public class LoadGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int SAMPLES_PER_FRAME = 25;
+    private static final double SAMPLING_FREQUENCY = 100;
+
+    private final InetSocketAddress address;
+    private final long samplesPerDevice;
+    private final double speed;
+    private final LatencyHistogram roundTrips = new LatencyHistogram();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public LoadGenerator(InetSocketAddress address, long samplesPerDevice, double speed) {
+        this.address = address;
+        this.samplesPerDevice = samplesPerDevice;
+        this.speed = speed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var target = args.length > 0 ? args[0] : "embedded";
+        var devices = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        var seconds = args.length > 2 ? Double.parseDouble(args[2]) : 60;
+        var speed = args.length > 3 && !"max".equals(args[3]) ? Double.parseDouble(args[3]) : Double.POSITIVE_INFINITY;
+
+        IngestionServer server = null;
+        InetSocketAddress address;
+        if ("embedded".equals(target)) {
+            var workers = Runtime.getRuntime().availableProcessors();
+            var sessions = new SessionStore(StepDetectorConfig.DEFAULT);
+            server = new IngestionServer(0, workers, sessions, TimeUnit.MINUTES.toNanos(10));
+            server.start();
+            address = new InetSocketAddress("localhost", server.port());
+        } else {
+            var separator = target.lastIndexOf(':');
+            address = new InetSocketAddress(target.substring(0, separator),
+                    Integer.parseInt(target.substring(separator + 1)));
+        }
+
+        try {
+            new LoadGenerator(address, (long) (seconds * SAMPLING_FREQUENCY), speed).run(devices);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Runs the given number of devices to completion and logs the results
+     */
+    public void run(int devices) {
+        var startNanos = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < devices; i++) {
+                var deviceId = i;
+                executor.execute(() -> runDevice(deviceId));
+            }
+        }
+        var elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        LOGGER.info("{} devices sent {} frames in {} s ({} samples/s), {} devices failed", devices, frames.get(),
+                elapsedSeconds, frames.get() * SAMPLES_PER_FRAME / elapsedSeconds, failures.get());
+        LOGGER.info("Round trip p50 {} us, p99 {} us, max {} us", roundTrips.percentile(50) / 1e3,
+                roundTrips.percentile(99) / 1e3, roundTrips.max() / 1e3);
+    }
+
+    private void runDevice(int deviceId) {
+        var generator = GyroscopeGenerator.forUser(0, deviceId, samplesPerDevice);
+        var time = new double[SAMPLES_PER_FRAME];
+        var wx = new double[SAMPLES_PER_FRAME];
+        var wy = new double[SAMPLES_PER_FRAME];
+        var wz = new double[SAMPLES_PER_FRAME];
+        var frame = ByteBuffer.allocate(IngestionProtocol.MAX_FRAME_BYTES);
+        var response = ByteBuffer.allocate(IngestionProtocol.RESPONSE_BYTES);
+        var frameNanos = (long) (SAMPLES_PER_FRAME / SAMPLING_FREQUENCY / speed * 1e9);
+
+        try (var channel = SocketChannel.open(address)) {
+            channel.socket().setTcpNoDelay(true);
+            var nextFrame = System.nanoTime();
+            while (generator.hasNext()) {
+                var count = 0;
+                while (count < SAMPLES_PER_FRAME && generator.hasNext()) {
+                    var sample = generator.next();
+                    time[count] = sample.time();
+                    wx[count] = sample.wx();
+                    wy[count] = sample.wy();
+                    wz[count] = sample.wz();
+                    count++;
+                }
+
+                if (speed != Double.POSITIVE_INFINITY) {
+                    nextFrame += frameNanos;
+                    LockSupport.parkNanos(nextFrame - System.nanoTime());
+                }
+
+                frame.clear();
+                IngestionProtocol.writeFrame(frame, deviceId, time, wx, wy, wz, 0, count);
+                frame.flip();
+                var sent = System.nanoTime();
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+
+                response.clear();
+                while (response.hasRemaining()) {
+                    if (channel.read(response) < 0) {
+                        throw new IOException("Connection closed by server");
+                    }
+                }
+                roundTrips.record(System.nanoTime() - sent);
+                frames.incrementAndGet();
+            }
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            LOGGER.debug("Device {} failed: {}", deviceId, e.getMessage());
+        }
+    }
+}
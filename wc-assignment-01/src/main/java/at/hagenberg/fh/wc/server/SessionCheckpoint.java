@@ -0,0 +1,87 @@
+package at.hagenberg.fh.wc.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the sessions of a {@link SessionStore} to a snapshot file, so that a restarted server resumes
+ * counting where it stopped instead of losing the last window and the step count of every device. The last snapshot is
+ * written on {@link #close()}.
+ */
+public class SessionCheckpoint implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionCheckpoint.class);
+
+    private final SessionStore sessions;
+    private final Path file;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("session-checkpoint").daemon().factory());
+
+    /**
+     * @param sessions The sessions to checkpoint
+     * @param file     The snapshot file
+     */
+    public SessionCheckpoint(SessionStore sessions, Path file) {
+        this.sessions = sessions;
+        this.file = file;
+    }
+
+    /**
+     * Restores the sessions of the last snapshot, if there is one
+     *
+     * @return The number of restored sessions
+     */
+    public int restore() {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try {
+            var start = System.nanoTime();
+            var restored = sessions.restoreSnapshot(file);
+            LOGGER.info("Restored {} sessions from {} in {} ms", restored, file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return restored;
+        } catch (IOException e) {
+            LOGGER.error("Could not restore sessions from {}: {}", file, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Starts writing a snapshot at a fixed interval
+     *
+     * @param interval The time between two snapshots
+     * @param unit     The unit of the interval
+     */
+    public void start(long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(this::write, interval, interval, unit);
+    }
+
+    private void write() {
+        try {
+            var start = System.nanoTime();
+            var written = sessions.writeSnapshot(file);
+            LOGGER.debug("Wrote {} sessions to {} in {} ms", written, file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            LOGGER.error("Could not write sessions to {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write();
+    }
+}
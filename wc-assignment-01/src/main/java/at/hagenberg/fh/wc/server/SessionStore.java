@@ -0,0 +1,366 @@
+package at.hagenberg.fh.wc.server;
+
+import at.hagenberg.fh.wc.detector.WindowAnalyzer;
+import at.hagenberg.fh.wc.helper.HashHelper;
+import at.hagenberg.fh.wc.model.StepDetectorConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The incremental step detection state of every connected device, laid out for very large fleets. Instead of one
+ * detector object per device, the state lives in slabs of primitive arrays indexed by a slot number:
+ * <ul>
+ *     <li>the ring buffer of the last {@code windowSize} samples per axis as {@code float}s, which keep about seven
+ *     significant digits at any magnitude, so samples are neither rounded to a fixed resolution nor clamped</li>
+ *     <li>the sample count, step count, last timestamp and last access time</li>
+ * </ul>
+ * With the default configuration a device takes a little over 6 KB. Device ids are mapped to slots by a primitive
+ * open-addressing index, so a lookup does not allocate. Devices are spread over independently locked shards, and a
+ * shard is locked while one of its devices' frames is processed.
+ */
+public class SessionStore {
+    private static final int SLAB_SLOTS = 256;
+    private static final int SNAPSHOT_MAGIC = 0x57435353; // "WCSS"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOT_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+
+    private final StepDetectorConfig config;
+    private final Shard[] shards;
+    private final int shardMask;
+
+    /**
+     * @param config The parameters of the detection
+     * @param shards The number of independently locked shards, rounded up to a power of two
+     */
+    public SessionStore(StepDetectorConfig config, int shards) {
+        this.config = config;
+        var shardCount = Integer.highestOneBit(Math.max(shards, 1) * 2 - 1);
+        this.shards = new Shard[shardCount];
+        this.shardMask = shardCount - 1;
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Creates a store with four shards per available processor
+     */
+    public SessionStore(StepDetectorConfig config) {
+        this(config, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    private Shard shard(long deviceId) {
+        return shards[(int) (HashHelper.finish(deviceId, 1) >>> 32) & shardMask];
+    }
+
+    /**
+     * Feeds the samples of a frame into the session of its device and writes the response
+     *
+     * @param frame    The frame without its length field, positioned at the device id, whose sample count was checked
+     *                 against its length by the caller
+     * @param response The buffer the response is appended to
+     */
+    public void process(ByteBuffer frame, ByteBuffer response) {
+        var deviceId = frame.getLong();
+        var count = frame.getInt();
+        var shard = shard(deviceId);
+
+        synchronized (shard) {
+            var slot = shard.slotOf(deviceId);
+            for (int i = 0; i < count; i++) {
+                shard.accept(slot, frame.getDouble(), frame.getDouble(), frame.getDouble(), frame.getDouble());
+            }
+            var slab = shard.slab(slot);
+            var index = slot % SLAB_SLOTS;
+            slab.lastAccess[index] = System.nanoTime();
+            IngestionProtocol.writeResponse(response, deviceId, slab.sampleCount[index], slab.stepCount[index]);
+        }
+    }
+
+    /**
+     * Releases the sessions of all devices that have not sent anything for the given time
+     *
+     * @param idleNanos The idle time after which a session is evicted
+     * @return The number of evicted sessions
+     */
+    public int evictIdle(long idleNanos) {
+        var evicted = 0;
+        var now = System.nanoTime();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                evicted += shard.evictIdle(now - idleNanos);
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Writes the sessions of all devices to a snapshot file. Each shard is copied while it is locked, so frames of other
+     * shards are processed meanwhile. The file is replaced atomically, a crash while writing leaves the previous
+     * snapshot intact.
+     * <p>
+     * The format is the magic number {@code WCSS}, a version and the hash of the detector configuration, followed by one
+     * record per device: id, sample count, step count, last timestamp and the ring buffers of the three axes.
+     *
+     * @param file The snapshot file
+     * @return The number of written sessions
+     * @throws IOException If the snapshot cannot be written
+     */
+    public int writeSnapshot(Path file) throws IOException {
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        var written = 0;
+        var buffer = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(config.hash());
+
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Shard shard : shards) {
+                synchronized (shard) {
+                    buffer = shard.encode(buffer);
+                    written += shard.index.size();
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return written;
+    }
+
+    /**
+     * Restores the sessions of a snapshot written by {@link #writeSnapshot(Path)}, replacing the sessions of the same
+     * devices. Counting continues with the next window after the snapshot, as the ring buffers are restored as well.
+     *
+     * @param file The snapshot file
+     * @return The number of restored sessions
+     * @throws IOException If the snapshot cannot be read or was written with a different configuration
+     */
+    public int restoreSnapshot(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < SNAPSHOT_HEADER_BYTES || buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a session snapshot: " + file);
+            }
+            var version = buffer.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported session snapshot version " + version);
+            }
+            if (buffer.getLong() != config.hash()) {
+                throw new IOException("Session snapshot was written with a different detector configuration");
+            }
+
+            var restored = 0;
+            var now = System.nanoTime();
+            var recordBytes = recordBytes();
+            while (buffer.remaining() >= recordBytes) {
+                var deviceId = buffer.getLong(buffer.position());
+                var shard = shard(deviceId);
+                synchronized (shard) {
+                    shard.decode(buffer, now);
+                }
+                restored++;
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Session snapshot is truncated: " + file);
+            }
+
+            return restored;
+        }
+    }
+
+    private int recordBytes() {
+        return 3 * Long.BYTES + Double.BYTES + 3 * config.windowSize() * Float.BYTES;
+    }
+
+    /**
+     * @return The number of devices that currently have a session
+     */
+    public int size() {
+        var size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.index.size();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Primitive state of {@link #SLAB_SLOTS} sessions
+     */
+    private final class Slab {
+        private final float[] samples = new float[SLAB_SLOTS * 3 * config.windowSize()];
+        private final long[] deviceIds = new long[SLAB_SLOTS];
+        private final long[] sampleCount = new long[SLAB_SLOTS];
+        private final double[] stepCount = new double[SLAB_SLOTS];
+        private final double[] lastTime = new double[SLAB_SLOTS];
+        private final long[] lastAccess = new long[SLAB_SLOTS];
+        private final boolean[] used = new boolean[SLAB_SLOTS];
+    }
+
+    private final class Shard {
+        private final DeviceIndex index = new DeviceIndex(SLAB_SLOTS);
+        private final List<Slab> slabs = new ArrayList<>();
+        private final WindowAnalyzer analyzer = new WindowAnalyzer(config);
+        private final double[] axisData = new double[config.windowSize()];
+        private final double[] absSums = new double[3];
+        private int[] freeSlots = new int[SLAB_SLOTS];
+        private int freeCount;
+
+        private Slab slab(int slot) {
+            return slabs.get(slot / SLAB_SLOTS);
+        }
+
+        private int slotOf(long deviceId) {
+            var slot = index.get(deviceId);
+            if (slot >= 0) {
+                return slot;
+            }
+
+            if (freeCount == 0) {
+                var first = slabs.size() * SLAB_SLOTS;
+                slabs.add(new Slab());
+                for (int i = SLAB_SLOTS - 1; i >= 0; i--) {
+                    freeSlots[freeCount++] = first + i;
+                }
+            }
+            slot = freeSlots[--freeCount];
+            index.put(deviceId, slot);
+
+            var slab = slab(slot);
+            var i = slot % SLAB_SLOTS;
+            slab.used[i] = true;
+            slab.deviceIds[i] = deviceId;
+            slab.sampleCount[i] = 0;
+            slab.stepCount[i] = 0;
+            slab.lastTime[i] = Double.NaN;
+
+            return slot;
+        }
+
+        private void accept(int slot, double time, double x, double y, double z) {
+            var slab = slab(slot);
+            var i = slot % SLAB_SLOTS;
+            var windowSize = config.windowSize();
+            var count = slab.sampleCount[i];
+            var position = (int) (count % windowSize);
+
+            var offset = i * 3 * windowSize + position;
+            slab.samples[offset] = (float) x;
+            slab.samples[offset + windowSize] = (float) y;
+            slab.samples[offset + 2 * windowSize] = (float) z;
+            slab.sampleCount[i] = ++count;
+            slab.lastTime[i] = time;
+
+            if (count < windowSize || (count - windowSize) % config.slidingWindowLength() != 0) {
+                return;
+            }
+
+            // Summed from the oldest sample on like WindowAnalyzer, comparing the sums is comparing the means
+            var oldest = (int) (count % windowSize);
+            Arrays.fill(absSums, 0);
+            for (int a = 0; a < 3; a++) {
+                var base = (i * 3 + a) * windowSize;
+                for (int j = 0; j < windowSize; j++) {
+                    absSums[a] += Math.abs(slab.samples[base + (oldest + j) % windowSize]);
+                }
+            }
+            var axis = 0;
+            for (int a = 1; a < 3; a++) {
+                if (absSums[a] > absSums[axis]) {
+                    axis = a;
+                }
+            }
+            var base = (i * 3 + axis) * windowSize;
+            for (int j = 0; j < windowSize; j++) {
+                axisData[j] = slab.samples[base + (oldest + j) % windowSize];
+            }
+
+            slab.stepCount[i] += analyzer.analyzeAxis(axisData);
+        }
+
+        /**
+         * Appends the records of all sessions of this shard, growing the buffer if needed
+         *
+         * @return The buffer holding the records, which is a new one if it had to grow
+         */
+        private ByteBuffer encode(ByteBuffer buffer) {
+            var needed = buffer.position() + (long) index.size() * recordBytes();
+            if (needed > buffer.capacity()) {
+                var grown = ByteBuffer.allocate((int) Math.max(needed, 2L * buffer.capacity()));
+                buffer = grown.put(buffer.flip());
+            }
+
+            var samplesPerSlot = 3 * config.windowSize();
+            for (int s = 0; s < slabs.size(); s++) {
+                var slab = slabs.get(s);
+                for (int i = 0; i < SLAB_SLOTS; i++) {
+                    if (!slab.used[i]) {
+                        continue;
+                    }
+                    buffer.putLong(slab.deviceIds[i])
+                            .putLong(slab.sampleCount[i])
+                            .putDouble(slab.stepCount[i])
+                            .putDouble(slab.lastTime[i]);
+                    buffer.asFloatBuffer().put(slab.samples, i * samplesPerSlot, samplesPerSlot);
+                    buffer.position(buffer.position() + samplesPerSlot * Float.BYTES);
+                }
+            }
+
+            return buffer;
+        }
+
+        /**
+         * Reads one session record into this shard
+         */
+        private void decode(ByteBuffer buffer, long now) {
+            var slot = slotOf(buffer.getLong());
+            var slab = slab(slot);
+            var i = slot % SLAB_SLOTS;
+            var samplesPerSlot = 3 * config.windowSize();
+
+            slab.sampleCount[i] = buffer.getLong();
+            slab.stepCount[i] = buffer.getDouble();
+            slab.lastTime[i] = buffer.getDouble();
+            buffer.asFloatBuffer().get(slab.samples, i * samplesPerSlot, samplesPerSlot);
+            buffer.position(buffer.position() + samplesPerSlot * Float.BYTES);
+            slab.lastAccess[i] = now;
+        }
+
+        private int evictIdle(long lastAccessBefore) {
+            var evicted = 0;
+            for (int s = 0; s < slabs.size(); s++) {
+                var slab = slabs.get(s);
+                for (int i = 0; i < SLAB_SLOTS; i++) {
+                    if (slab.used[i] && slab.lastAccess[i] - lastAccessBefore < 0) {
+                        slab.used[i] = false;
+                        index.remove(slab.deviceIds[i]);
+                        if (freeCount == freeSlots.length) {
+                            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+                        }
+                        freeSlots[freeCount++] = s * SLAB_SLOTS + i;
+                        evicted++;
+                    }
+                }
+            }
+
+            return evicted;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package at.hagenberg.fh.wc.synthetic;
+
+import at.hagenberg.fh.wc.io.BinaryRecording;
+import at.hagenberg.fh.wc.io.CsvRecording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a synthetic recording for load tests. Usage:
+ * {@code GenerateRecording <output.csv|output.bin> <duration in seconds> [seed] [user id]}
+ */
+public class GenerateRecording {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenerateRecording.class);
+    private static final double SAMPLING_FREQUENCY = 100;
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            LOGGER.error("Usage: GenerateRecording <output.csv|output.bin> <duration in seconds> [seed] [user id]");
+            return;
+        }
+        var output = Path.of(args[0]);
+        var sampleCount = (long) (Double.parseDouble(args[1]) * SAMPLING_FREQUENCY);
+        var seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        var generator = args.length > 3
+                ? GyroscopeGenerator.forUser(seed, Integer.parseInt(args[3]), sampleCount)
+                : new GyroscopeGenerator(seed, sampleCount);
+
+        try {
+            long written;
+            if (output.toString().endsWith(BinaryRecording.EXTENSION)) {
+                try (var out = Files.newOutputStream(output)) {
+                    written = BinaryRecording.write(generator, out);
+                }
+            } else {
+                try (var out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    written = CsvRecording.write(generator, out);
+                }
+            }
+            LOGGER.info("Wrote {} samples to {}", written, output);
+        } catch (IOException e) {
+            LOGGER.error("Could not write {}: {}", output, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package at.hagenberg.fh.wc.synthetic;
+
+import at.hagenberg.fh.wc.helper.HashHelper;
+import at.hagenberg.fh.wc.model.SensorData;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Deterministic source of synthetic gyroscope samples that resemble the bundled recordings: a sequence of stationary,
+ * walking and running segments with a random duration each, sampled at roughly 100 Hz with timestamp jitter and
+ * quantized to 0.01 rad/s. While moving, one axis carries the stride oscillation and the others a weaker, phase shifted
+ * copy of it. The same seed always yields the same samples.
+ */
+public class GyroscopeGenerator implements Iterator<SensorData> {
+    /**
+     * The kinds of segments the generator switches between
+     */
+    public enum Activity {
+        STATIONARY(0, 0, 0, 0),
+        WALKING(0.75, 1.0, 1.2, 2.0),
+        RUNNING(1.1, 1.4, 2.5, 4.0);
+
+        private final double minStrideFrequency;
+        private final double maxStrideFrequency;
+        private final double minAmplitude;
+        private final double maxAmplitude;
+
+        Activity(double minStrideFrequency, double maxStrideFrequency, double minAmplitude, double maxAmplitude) {
+            this.minStrideFrequency = minStrideFrequency;
+            this.maxStrideFrequency = maxStrideFrequency;
+            this.minAmplitude = minAmplitude;
+            this.maxAmplitude = maxAmplitude;
+        }
+    }
+
+    private static final double MIN_SEGMENT_SECONDS = 10;
+    private static final double MAX_SEGMENT_SECONDS = 120;
+    private static final double QUANTIZATION = 100;
+
+    private final SplittableRandom random;
+    private final long sampleCount;
+    private final double samplingPeriod;
+    private final double noise;
+    private final double jitter;
+
+    private long emitted;
+    private double nominalTime;
+    private double lastTime;
+    private double phase;
+    private Activity activity;
+    private double segmentEnd;
+    private double strideFrequency;
+    private final double[] amplitudes = new double[3];
+    private final double[] phaseShifts = new double[3];
+
+    /**
+     * Creates a generator with the noise and jitter of the bundled recordings
+     *
+     * @param seed        The seed, equal seeds produce equal samples
+     * @param sampleCount The number of samples to generate
+     */
+    public GyroscopeGenerator(long seed, long sampleCount) {
+        this(seed, sampleCount, 100, 0.05, 0.0016);
+    }
+
+    /**
+     * @param seed              The seed, equal seeds produce equal samples
+     * @param sampleCount       The number of samples to generate
+     * @param samplingFrequency The nominal sampling frequency in Hz
+     * @param noise             The standard deviation of the sensor noise in rad/s
+     * @param jitter            The standard deviation of a timestamp from its nominal value in seconds
+     */
+    public GyroscopeGenerator(long seed, long sampleCount, double samplingFrequency, double noise, double jitter) {
+        this.random = new SplittableRandom(seed);
+        this.sampleCount = sampleCount;
+        this.samplingPeriod = 1 / samplingFrequency;
+        this.noise = noise;
+        this.jitter = jitter;
+        this.lastTime = -samplingPeriod / 10;
+        startSegment();
+    }
+
+    /**
+     * Creates the generator of one user in a simulated cohort
+     *
+     * @param seed        The seed of the cohort
+     * @param userId      The id of the user within the cohort
+     * @param sampleCount The number of samples to generate
+     * @return A generator that is independent of the other users' but still reproducible
+     */
+    public static GyroscopeGenerator forUser(long seed, int userId, long sampleCount) {
+        return new GyroscopeGenerator(HashHelper.finish(HashHelper.mix(seed, userId), 1), sampleCount);
+    }
+
+    private void startSegment() {
+        var activities = Activity.values();
+        activity = activities[random.nextInt(activities.length)];
+        segmentEnd = nominalTime + random.nextDouble(MIN_SEGMENT_SECONDS, MAX_SEGMENT_SECONDS);
+
+        if (activity == Activity.STATIONARY) {
+            strideFrequency = 0;
+            amplitudes[0] = amplitudes[1] = amplitudes[2] = 0;
+            return;
+        }
+        strideFrequency = random.nextDouble(activity.minStrideFrequency, activity.maxStrideFrequency);
+        // The axis the device is most sensitive on depends on how it is worn
+        var dominantAxis = random.nextInt(3);
+        for (int axis = 0; axis < 3; axis++) {
+            var amplitude = random.nextDouble(activity.minAmplitude, activity.maxAmplitude);
+            amplitudes[axis] = axis == dominantAxis ? amplitude : amplitude * random.nextDouble(0.1, 0.5);
+            phaseShifts[axis] = random.nextDouble(2 * Math.PI);
+        }
+    }
+
+    private double axisValue(int axis) {
+        var value = noise * random.nextGaussian();
+        if (amplitudes[axis] != 0) {
+            // Stride oscillation plus the first harmonic caused by heel strike and toe off
+            var angle = phase + phaseShifts[axis];
+            value += amplitudes[axis] * (Math.sin(angle) + 0.3 * Math.sin(2 * angle));
+        }
+
+        return Math.round(value * QUANTIZATION) / QUANTIZATION;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return emitted < sampleCount;
+    }
+
+    @Override
+    public SensorData next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (nominalTime >= segmentEnd) {
+            startSegment();
+        }
+
+        // Jitter must never reorder samples
+        var time = Math.max(lastTime + samplingPeriod / 10, nominalTime + jitter * random.nextGaussian());
+        lastTime = time;
+        var sample = new SensorData(time, axisValue(0), axisValue(1), axisValue(2));
+
+        emitted++;
+        nominalTime = emitted * samplingPeriod;
+        phase = (phase + 2 * Math.PI * strideFrequency * samplingPeriod) % (2 * Math.PI);
+
+        return sample;
+    }
+
+    /**
+     * @return The activity of the segment the next sample belongs to
+     */
+    public Activity activity() {
+        return activity;
+    }
+
+    /**
+     * @return The remaining samples as a sequential stream
+     */
+    public Stream<SensorData> stream() {
+        var remaining = sampleCount - emitted;
+        var characteristics = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED;
+
+        return StreamSupport.stream(Spliterators.spliterator(this, remaining, characteristics), false);
+    }
+}
@@ -0,0 +1,132 @@
+package at.hagenberg.fh.wc.io;
+
+import at.hagenberg.fh.wc.model.SensorData;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Recording held outside the Java heap in a {@link MemorySegment}, so that even recordings of several gigabytes neither
+ * occupy the heap nor have to be traced by the garbage collector. The samples are stored like in the binary format, as
+ * records of four doubles ({@code time, wx, wy, wz}). A recording in the binary format is mapped directly from its file
+ * without copying or parsing anything.
+ * <p>
+ * The memory belongs to an arena that is released deterministically by {@link #close()}, after which neither the
+ * recording nor any window obtained from it may be accessed anymore. A recording may be read by several threads.
+ * <p>
+ * The Foreign Function &amp; Memory API is a preview feature of Java 21, so this class is compiled with
+ * {@code --enable-preview} in a source set of its own and only loaded by {@link Recordings#open(String)} on JVMs
+ * started with that flag. Nothing else links it, so all other classes run without the flag.
+ */
+public final class OffHeapRecording implements SampleSource {
+    public static final long SAMPLE_BYTES = BinaryRecording.RECORD_BYTES;
+
+    private final Arena arena;
+    private final MemorySegment samples;
+    private final ValueLayout.OfDouble layout;
+    private final long size;
+
+    private OffHeapRecording(Arena arena, MemorySegment samples, ValueLayout.OfDouble layout) {
+        this.arena = arena;
+        this.samples = samples;
+        this.layout = layout;
+        this.size = samples.byteSize() / SAMPLE_BYTES;
+    }
+
+    /**
+     * Maps a recording in the binary format (see {@link BinaryRecording}) into memory
+     *
+     * @param file The recording
+     * @return The mapped recording, which must be closed to unmap the file
+     * @throws IOException If the file cannot be mapped or is not in the binary format
+     */
+    public static OffHeapRecording map(Path file) throws IOException {
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            var header = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+            if (mapped.byteSize() < BinaryRecording.HEADER_BYTES || mapped.get(header, 0) != BinaryRecording.MAGIC) {
+                throw new IOException("Not a binary recording: " + file);
+            }
+            var version = mapped.get(header, Integer.BYTES);
+            if (version != BinaryRecording.VERSION) {
+                throw new IOException("Unsupported binary recording version " + version);
+            }
+
+            // A record cut off at the end of the file is dropped with a warning, like by BinaryRecording.read
+            var records = (mapped.byteSize() - BinaryRecording.HEADER_BYTES) / SAMPLE_BYTES;
+            var partial = (mapped.byteSize() - BinaryRecording.HEADER_BYTES) % SAMPLE_BYTES;
+            if (partial > 0) {
+                BinaryRecording.warnTruncated(records, partial);
+            }
+            var samples = mapped.asSlice(BinaryRecording.HEADER_BYTES, records * SAMPLE_BYTES);
+            return new OffHeapRecording(arena, samples, ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.BIG_ENDIAN));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies samples into native memory
+     *
+     * @param values The samples to copy
+     * @return The recording, which must be closed to free the memory
+     */
+    public static OffHeapRecording copyOf(List<SensorData> values) {
+        var arena = Arena.ofShared();
+        var layout = ValueLayout.JAVA_DOUBLE;
+        var samples = arena.allocate(values.size() * SAMPLE_BYTES, Double.BYTES);
+        var offset = 0L;
+        for (SensorData sample : values) {
+            samples.set(layout, offset, sample.time());
+            samples.set(layout, offset + Double.BYTES, sample.wx());
+            samples.set(layout, offset + 2 * Double.BYTES, sample.wy());
+            samples.set(layout, offset + 3 * Double.BYTES, sample.wz());
+            offset += SAMPLE_BYTES;
+        }
+
+        return new OffHeapRecording(arena, samples, layout);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public double get(long sample, int column) {
+        return samples.get(layout, sample * SAMPLE_BYTES + column * (long) Double.BYTES);
+    }
+
+    /**
+     * Returns a view on consecutive samples without copying them. Sample {@code i} of the window starts at byte
+     * {@code i * SAMPLE_BYTES}, its values are read with {@link #layout()}.
+     *
+     * @param start  The index of the first sample of the window
+     * @param length The number of samples in the window
+     * @return The samples of the window, valid until the recording is closed
+     */
+    public MemorySegment window(long start, int length) {
+        return samples.asSlice(start * SAMPLE_BYTES, length * SAMPLE_BYTES);
+    }
+
+    /**
+     * @return The layout of a single value, big-endian for mapped files and in native order otherwise
+     */
+    public ValueLayout.OfDouble layout() {
+        return layout;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
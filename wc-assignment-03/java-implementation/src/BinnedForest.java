@@ -0,0 +1,180 @@
+import java.util.Arrays;
+
+/**
+ * The forest in a compact integer encoding. Every split compares with {@code <=}, so a feature only matters through the
+ * interval between its distinct thresholds it falls into, and {@code x <= t_j} holds exactly if that interval's index
+ * is at most {@code j}. A row is therefore binned once into one byte per feature, and the trees compare bytes.
+ * <p>
+ * A node is a single int: a split holds its feature in bits 24 to 30, the index of its threshold in bits 16 to 23 and
+ * the distance to its right child in the low 16 bits, the left child is the next node. A leaf has the sign bit set and
+ * the index of its value in the remaining bits. All nodes of the trained forest take 60 KB, small enough to stay in the
+ * L2 cache together with the leaf values. Leaf values are kept as doubles instead of floats: rounding them would change
+ * the predictions, which are the same as those of {@link Model#score(double[])} bit for bit.
+ */
+public class BinnedForest implements Scorer {
+    private static final int MAX_FEATURES = 1 << 7;
+    private static final int MAX_BINS = 1 << 8;
+    private static final int MAX_DISTANCE = 1 << 16;
+    private static final int LEAF = 1 << 31;
+
+    private final double scale;
+    private final double[][] thresholds;
+    private final int[] roots;
+    private final int[] nodes;
+    private final double[] leafValues;
+    /**
+     * The bins of the row scored by {@link #score(double[])}, one array per thread so that a forest can be shared, e.g.
+     * by {@link ParallelScorer}, without allocating per row
+     */
+    private final ThreadLocal<byte[]> scratch;
+
+    /**
+     * @param ensemble The forest to encode
+     * @throws IllegalArgumentException If a feature has more than 255 thresholds or a tree is too large to encode the
+     *                                  distances to the right children
+     */
+    public BinnedForest(TreeEnsemble ensemble) {
+        scale = ensemble.scale();
+        var featureCount = ensemble.featureCount();
+        if (featureCount > MAX_FEATURES) {
+            throw new IllegalArgumentException("At most " + MAX_FEATURES + " features are supported");
+        }
+        scratch = ThreadLocal.withInitial(() -> new byte[featureCount]);
+        thresholds = new double[featureCount][];
+        for (int f = 0; f < featureCount; f++) {
+            thresholds[f] = ensemble.thresholds(f);
+            if (thresholds[f].length >= MAX_BINS) {
+                throw new IllegalArgumentException("Feature " + f + " has " + thresholds[f].length
+                        + " thresholds, at most " + (MAX_BINS - 1) + " are supported");
+            }
+        }
+
+        roots = new int[ensemble.treeCount()];
+        nodes = new int[ensemble.nodeCount()];
+        var leafCount = 0;
+        for (int node = 0; node < ensemble.nodeCount(); node++) {
+            if (ensemble.isLeaf(node)) {
+                leafCount++;
+            }
+        }
+        leafValues = new double[leafCount];
+
+        var next = new int[2];
+        for (int t = 0; t < roots.length; t++) {
+            roots[t] = next[0];
+            encode(ensemble, ensemble.root(t), next);
+        }
+    }
+
+    /**
+     * Encodes a subtree in pre-order
+     *
+     * @param next The next free node and leaf value
+     */
+    private void encode(TreeEnsemble ensemble, int node, int[] next) {
+        var index = next[0]++;
+        if (ensemble.isLeaf(node)) {
+            var leaf = next[1]++;
+            leafValues[leaf] = ensemble.value(node);
+            nodes[index] = LEAF | leaf;
+            return;
+        }
+
+        var feature = ensemble.feature(node);
+        var bin = Arrays.binarySearch(thresholds[feature], ensemble.threshold(node));
+        encode(ensemble, ensemble.left(node), next);
+        var distance = next[0] - index;
+        if (distance >= MAX_DISTANCE) {
+            throw new IllegalArgumentException("Subtree too large to encode, " + distance + " nodes");
+        }
+        nodes[index] = feature << 24 | bin << 16 | distance;
+        encode(ensemble, ensemble.right(node), next);
+    }
+
+    /**
+     * @return The number of bytes a row is binned into
+     */
+    public int featureCount() {
+        return thresholds.length;
+    }
+
+    /**
+     * @return The memory of the nodes and leaf values in bytes
+     */
+    public long bytes() {
+        return (long) nodes.length * Integer.BYTES + (long) leafValues.length * Double.BYTES;
+    }
+
+    /**
+     * Bins a row, the index of the interval of feature {@code f} is written to {@code bins[offset + f]}
+     *
+     * @param input  The features of the row
+     * @param bins   Receives the bins
+     * @param offset The index of the row's first bin
+     */
+    public void bin(double[] input, byte[] bins, int offset) {
+        for (int f = 0; f < thresholds.length; f++) {
+            bins[offset + f] = (byte) TreeEnsemble.interval(thresholds[f], input[f]);
+        }
+    }
+
+    /**
+     * Bins a matrix of rows in row-major order, e.g. once when storing them to score them later
+     *
+     * @param features The feature matrix, {@code rows} rows of {@link #featureCount()} features
+     * @param rows     The number of rows
+     * @param bins     Receives the bins of the rows in the same order
+     */
+    public void binBatch(double[] features, int rows, byte[] bins) {
+        var input = new double[thresholds.length];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(features, r * input.length, input, 0, input.length);
+            bin(input, bins, r * input.length);
+        }
+    }
+
+    @Override
+    public double score(double[] input) {
+        var bins = scratch.get();
+        bin(input, bins, 0);
+        return score(bins, 0);
+    }
+
+    /**
+     * @param bins   The bins of one or more rows
+     * @param offset The index of the first bin of the row to score
+     * @return The prediction of the row
+     */
+    public double score(byte[] bins, int offset) {
+        var sum = tree(roots[0], bins, offset);
+        for (int t = 1; t < roots.length; t++) {
+            sum += tree(roots[t], bins, offset);
+        }
+        return sum * scale;
+    }
+
+    /**
+     * Scores rows binned by {@link #binBatch}
+     *
+     * @param bins   The bins of the rows
+     * @param rows   The number of rows
+     * @param output Receives the prediction of row {@code r} at index {@code r}
+     */
+    public void scoreBatch(byte[] bins, int rows, double[] output) {
+        for (int r = 0; r < rows; r++) {
+            output[r] = score(bins, r * thresholds.length);
+        }
+    }
+
+    private double tree(int index, byte[] bins, int offset) {
+        var node = nodes[index];
+        while (node >= 0) {
+            var bin = bins[offset + (node >>> 24)] & 0xFF;
+            // Without a branch: the difference is negative exactly if the test is false, then go to the right child
+            var goRight = ((node >>> 16 & 0xFF) - bin) >> 31;
+            index += 1 + (goRight & ((node & 0xFFFF) - 1));
+            node = nodes[index];
+        }
+        return leafValues[node & ~LEAF];
+    }
+}
@@ -0,0 +1,387 @@
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The forest merged into one ordered decision diagram, so that a prediction is a single walk instead of one walk per
+ * tree. Every test {@code input[f] <= t} of the forest is a variable, ordered by feature and then by threshold, and
+ * every path of the diagram tests the variables in this order. Once a path took the true branch of
+ * {@code input[f] <= t}, the tests of {@code f} against larger thresholds are decided and skipped. Identical nodes are
+ * shared and nodes whose branches lead to the same node are removed, so equal sub-functions exist only once.
+ * <p>
+ * The trees are merged one after the other and each terminal holds the sum of the leaves of the merged trees, added in
+ * the same order as by {@link TreeEnsemble}. The diagram grows quickly with every tree, so merging stops before the
+ * number of nodes exceeds a limit. The remaining trees are walked one by one and added to the terminal's partial sum,
+ * which keeps the predictions the same as those of {@link Model#score(double[])} bit for bit.
+ */
+public class DecisionDiagram implements Scorer {
+    private static final int TERMINAL = Integer.MAX_VALUE;
+
+    private final double scale;
+    private final int mergedTrees;
+    private final TreeEnsemble ensemble;
+    private final int root;
+    /**
+     * Node {@code i} tests {@code input[feature[i]] <= threshold[i]}, its children are at {@code 2i} (true) and
+     * {@code 2i+1} (false). Terminals are encoded as {@code -1 - index} into {@code values}.
+     */
+    private final int[] feature;
+    private final double[] threshold;
+    private final int[] children;
+    private final double[] values;
+
+    private DecisionDiagram(TreeEnsemble ensemble, int mergedTrees, int root, int[] feature, double[] threshold,
+                            int[] children, double[] values) {
+        this.scale = ensemble.scale();
+        this.ensemble = ensemble;
+        this.mergedTrees = mergedTrees;
+        this.root = root;
+        this.feature = feature;
+        this.threshold = threshold;
+        this.children = children;
+        this.values = values;
+    }
+
+    /**
+     * Merges as many trees as possible, starting with the first one
+     *
+     * @param ensemble The forest
+     * @param maxNodes The maximum number of nodes of the diagram
+     * @return The diagram, with only the trees merged whose diagram did not exceed the limit
+     */
+    public static DecisionDiagram compile(TreeEnsemble ensemble, int maxNodes) {
+        var builder = new Builder(ensemble, maxNodes);
+        var merged = 0;
+        // Without any tree merged, the predictions come from the ensemble alone
+        var root = builder.terminal(0);
+        for (int t = 0; t < ensemble.treeCount(); t++) {
+            try {
+                var tree = builder.tree(ensemble.root(t));
+                // The first tree's leaves are the partial sums themselves, so that they are added like in score
+                root = builder.compact(t == 0 ? tree : builder.sum(root, tree));
+            } catch (NodeLimitException e) {
+                break;
+            }
+            merged++;
+        }
+
+        return builder.flatten(ensemble, merged, root);
+    }
+
+    /**
+     * @return The number of trees merged into the diagram, the others are walked one by one
+     */
+    public int mergedTrees() {
+        return mergedTrees;
+    }
+
+    /**
+     * @return The number of decision nodes
+     */
+    public int nodeCount() {
+        return feature.length;
+    }
+
+    /**
+     * @return The number of distinct partial sums in the terminals
+     */
+    public int terminalCount() {
+        return values.length;
+    }
+
+    /**
+     * @return The approximate memory of the diagram in bytes
+     */
+    public long bytes() {
+        return (long) feature.length * (Integer.BYTES + Double.BYTES + 2 * Integer.BYTES)
+                + (long) values.length * Double.BYTES;
+    }
+
+    @Override
+    public double score(double[] input) {
+        var node = root;
+        while (node >= 0) {
+            node = children[2 * node + (input[feature[node]] <= threshold[node] ? 0 : 1)];
+        }
+        if (mergedTrees == 0) {
+            return ensemble.score(input);
+        }
+
+        var sum = values[-1 - node];
+        for (int t = mergedTrees; t < ensemble.treeCount(); t++) {
+            sum += ensemble.treeScore(t, input);
+        }
+        return sum * scale;
+    }
+
+    private static class NodeLimitException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        NodeLimitException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Builds the diagram with a table of unique nodes. Decision nodes have ids from 0, terminals negative ids.
+     */
+    private static class Builder {
+        private final TreeEnsemble ensemble;
+        private final int maxNodes;
+        /**
+         * The variables ordered by feature and threshold, and the first variable of every feature
+         */
+        private final int[] variableFeature;
+        private final double[] variableThreshold;
+        private final int[] featureStart;
+        private final Map<String, Integer> variables = new HashMap<>();
+
+        private int[] var = new int[1024];
+        private int[] low = new int[1024];
+        private int[] high = new int[1024];
+        private int count;
+        private final Map<Node, Integer> unique = new HashMap<>();
+        private final ArrayList<Double> terminalValues = new ArrayList<>();
+        private final Map<Long, Integer> terminals = new HashMap<>();
+
+        private record Node(int var, int low, int high) {
+        }
+
+        Builder(TreeEnsemble ensemble, int maxNodes) {
+            this.ensemble = ensemble;
+            this.maxNodes = maxNodes;
+            var featureCount = ensemble.featureCount();
+            featureStart = new int[featureCount + 1];
+            var features = new ArrayList<Integer>();
+            var thresholds = new ArrayList<Double>();
+            for (int f = 0; f < featureCount; f++) {
+                featureStart[f] = features.size();
+                for (double t : ensemble.thresholds(f)) {
+                    variables.put(f + ":" + Double.doubleToLongBits(t), features.size());
+                    features.add(f);
+                    thresholds.add(t);
+                }
+            }
+            featureStart[featureCount] = features.size();
+            variableFeature = features.stream().mapToInt(Integer::intValue).toArray();
+            variableThreshold = thresholds.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+
+        int terminal(double value) {
+            return -1 - terminals.computeIfAbsent(Double.doubleToRawLongBits(value), bits -> {
+                terminalValues.add(value);
+                return terminalValues.size() - 1;
+            });
+        }
+
+        private int var(int node) {
+            return node < 0 ? TERMINAL : var[node];
+        }
+
+        private int make(int v, int lowChild, int highChild) {
+            if (lowChild == highChild) {
+                return lowChild;
+            }
+            return unique.computeIfAbsent(new Node(v, lowChild, highChild), key -> {
+                if (count == maxNodes) {
+                    throw new NodeLimitException();
+                }
+                if (count == var.length) {
+                    var = Arrays.copyOf(var, 2 * count);
+                    low = Arrays.copyOf(low, 2 * count);
+                    high = Arrays.copyOf(high, 2 * count);
+                }
+                var[count] = v;
+                low[count] = lowChild;
+                high[count] = highChild;
+                return count++;
+            });
+        }
+
+        /**
+         * Restricts a node to the true branch of a test of {@code feature}, so that its tests of the feature against
+         * larger thresholds are true
+         */
+        private int skipFeature(int node, int feature) {
+            while (node >= 0 && var[node] < featureStart[feature + 1]) {
+                node = low[node];
+            }
+            return node;
+        }
+
+        /**
+         * Converts a subtree of the ensemble into a diagram
+         */
+        int tree(int node) {
+            if (ensemble.isLeaf(node)) {
+                return terminal(ensemble.value(node));
+            }
+            var v = variables.get(ensemble.feature(node) + ":" + Double.doubleToLongBits(ensemble.threshold(node)));
+            return ifThenElse(v, tree(ensemble.left(node)), tree(ensemble.right(node)), new HashMap<>());
+        }
+
+        /**
+         * @return The diagram of "if variable {@code v} is true then {@code a} else {@code b}"
+         */
+        private int ifThenElse(int v, int a, int b, Map<Long, Integer> memo) {
+            var top = Math.min(v, Math.min(var(a), var(b)));
+            var feature = variableFeature[top];
+            if (top == v) {
+                var onTrue = skipFeature(var(a) == v ? low[a] : a, feature);
+                var onFalse = var(b) == v ? high[b] : b;
+                return make(v, onTrue, onFalse);
+            }
+
+            var key = pair(a, b);
+            var result = memo.get(key);
+            if (result != null) {
+                return result;
+            }
+            var aLow = skipFeature(var(a) == top ? low[a] : a, feature);
+            var bLow = skipFeature(var(b) == top ? low[b] : b, feature);
+            var aHigh = var(a) == top ? high[a] : a;
+            var bHigh = var(b) == top ? high[b] : b;
+            // A smaller threshold of the same feature being true decides v as well
+            var onTrue = feature == variableFeature[v] ? aLow : ifThenElse(v, aLow, bLow, memo);
+            var onFalse = ifThenElse(v, aHigh, bHigh, memo);
+            result = make(top, onTrue, onFalse);
+            memo.put(key, result);
+            return result;
+        }
+
+        /**
+         * @return The diagram whose terminals are the sums of the terminals of {@code a} and {@code b}, added in this
+         * order
+         */
+        int sum(int a, int b) {
+            return sum(a, b, new HashMap<>());
+        }
+
+        private int sum(int a, int b, Map<Long, Integer> memo) {
+            if (a < 0 && b < 0) {
+                return terminal(terminalValues.get(-1 - a) + terminalValues.get(-1 - b));
+            }
+
+            var key = pair(a, b);
+            var result = memo.get(key);
+            if (result != null) {
+                return result;
+            }
+            var top = Math.min(var(a), var(b));
+            var feature = variableFeature[top];
+            var aLow = skipFeature(var(a) == top ? low[a] : a, feature);
+            var bLow = skipFeature(var(b) == top ? low[b] : b, feature);
+            var aHigh = var(a) == top ? high[a] : a;
+            var bHigh = var(b) == top ? high[b] : b;
+            result = make(top, sum(aLow, bLow, memo), sum(aHigh, bHigh, memo));
+            memo.put(key, result);
+            return result;
+        }
+
+        private static long pair(int a, int b) {
+            return (long) a << 32 | (b & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Drops the nodes that are not reachable from the root, i.e. those of the previous diagrams and of the trees
+         * that were merged, so that the node limit only applies to the current diagram
+         *
+         * @return The id of the root after compaction
+         */
+        int compact(int root) {
+            if (root < 0) {
+                return root;
+            }
+            var ids = new int[count];
+            Arrays.fill(ids, -1);
+            var order = postOrder(root);
+            var newVar = new int[Math.max(order.size(), 1024)];
+            var newLow = new int[newVar.length];
+            var newHigh = new int[newVar.length];
+            unique.clear();
+            for (int next = 0; next < order.size(); next++) {
+                int node = order.get(next);
+                // Children come before their parents, so they already have their new ids
+                newVar[next] = var[node];
+                newLow[next] = low[node] < 0 ? low[node] : ids[low[node]];
+                newHigh[next] = high[node] < 0 ? high[node] : ids[high[node]];
+                ids[node] = next;
+                unique.put(new Node(newVar[next], newLow[next], newHigh[next]), next);
+            }
+            var = newVar;
+            low = newLow;
+            high = newHigh;
+            count = order.size();
+            return ids[root];
+        }
+
+        /**
+         * @return The decision nodes reachable from the root, every node after its children
+         */
+        private ArrayList<Integer> postOrder(int root) {
+            var visited = new boolean[count];
+            var order = new ArrayList<Integer>();
+            var stack = new ArrayList<Integer>();
+            // Whether the children of the node at the same position of the stack have been pushed
+            var expanded = new ArrayList<Boolean>();
+            stack.add(root);
+            expanded.add(false);
+            while (!stack.isEmpty()) {
+                int node = stack.remove(stack.size() - 1);
+                if (expanded.remove(expanded.size() - 1)) {
+                    order.add(node);
+                } else if (node >= 0 && !visited[node]) {
+                    visited[node] = true;
+                    stack.add(node);
+                    expanded.add(true);
+                    stack.add(high[node]);
+                    expanded.add(false);
+                    stack.add(low[node]);
+                    expanded.add(false);
+                }
+            }
+            return order;
+        }
+
+        /**
+         * Copies the nodes reachable from the root into the arrays of the diagram, in depth-first order
+         */
+        DecisionDiagram flatten(TreeEnsemble ensemble, int mergedTrees, int root) {
+            var ids = new HashMap<Integer, Integer>();
+            var order = new ArrayList<Integer>();
+            var terminalIds = new HashMap<Integer, Integer>();
+            var stack = new ArrayList<Integer>();
+            stack.add(root);
+            while (!stack.isEmpty()) {
+                var node = stack.remove(stack.size() - 1);
+                if (node < 0) {
+                    terminalIds.putIfAbsent(node, -1 - terminalIds.size());
+                } else if (!ids.containsKey(node)) {
+                    ids.put(node, order.size());
+                    order.add(node);
+                    stack.add(high[node]);
+                    stack.add(low[node]);
+                }
+            }
+
+            var feature = new int[order.size()];
+            var threshold = new double[order.size()];
+            var children = new int[2 * order.size()];
+            for (int i = 0; i < order.size(); i++) {
+                int node = order.get(i);
+                feature[i] = variableFeature[var[node]];
+                threshold[i] = variableThreshold[var[node]];
+                children[2 * i] = low[node] < 0 ? terminalIds.get(low[node]) : ids.get(low[node]);
+                children[2 * i + 1] = high[node] < 0 ? terminalIds.get(high[node]) : ids.get(high[node]);
+            }
+            var values = new double[terminalIds.size()];
+            terminalIds.forEach((node, id) -> values[-1 - id] = terminalValues.get(-1 - node));
+
+            return new DecisionDiagram(ensemble, mergedTrees, root < 0 ? terminalIds.get(root) : 0, feature,
+                    threshold, children, values);
+        }
+    }
+}
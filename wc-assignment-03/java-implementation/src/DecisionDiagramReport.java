@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compiles the forest into decision diagrams of different node limits and reports their size, compile time and
+ * latency next to {@link TreeEnsemble}, to choose a limit per deployment.
+ * <p>
+ * Usage: {@code java DecisionDiagramReport [model file] [node limits...]}
+ */
+public class DecisionDiagramReport {
+    private static final int ROWS = 100_000;
+    private static final int ROUNDS = 10;
+    private static final int WARM_UP_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        var ensemble = TreeEnsemble.load(Path.of(args.length > 0 ? args[0] : "model.trees"));
+        var limits = new int[]{10_000, 100_000, 1_000_000};
+        if (args.length > 1) {
+            limits = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                limits[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        var rows = new double[ROWS][];
+        var random = new Random(42);
+        for (int r = 0; r < ROWS; r++) {
+            rows[r] = new double[]{18 + random.nextInt(45), 30 + random.nextDouble() * 40,
+                    50 + random.nextDouble() * 50, random.nextInt(2), 60 + random.nextDouble() * 130};
+        }
+
+        System.out.printf("%-10s %6s %9s %9s %10s %11s %10s%n", "limit", "merged", "nodes", "terminals", "size (KB)",
+                "compile ms", "ns/row");
+        System.out.printf("%-10s %6d %9d %9s %10d %11s %10.1f%n", "ensemble", 0, ensemble.nodeCount(), "-",
+                ensemble.nodeCount() * 32L / 1024, "-", latency(ensemble, rows));
+        for (int limit : limits) {
+            var start = System.nanoTime();
+            var diagram = DecisionDiagram.compile(ensemble, limit);
+            var compileMillis = (System.nanoTime() - start) / 1e6;
+            for (double[] row : rows) {
+                if (Double.compare(diagram.score(row), Model.score(row)) != 0) {
+                    throw new IllegalStateException("Diagram with limit " + limit + " differs from Model");
+                }
+            }
+            System.out.printf("%-10d %6d %9d %9d %10d %11.0f %10.1f%n", limit, diagram.mergedTrees(),
+                    diagram.nodeCount(), diagram.terminalCount(), diagram.bytes() / 1024, compileMillis,
+                    latency(diagram, rows));
+        }
+    }
+
+    private static double latency(Scorer scorer, double[][] rows) {
+        var best = Double.MAX_VALUE;
+        var checksum = 0.0;
+        for (int round = 0; round < ROUNDS; round++) {
+            var start = System.nanoTime();
+            for (double[] row : rows) {
+                checksum += scorer.score(row);
+            }
+            if (round >= WARM_UP_ROUNDS) {
+                best = Math.min(best, (double) (System.nanoTime() - start) / rows.length);
+            }
+        }
+        // Keeps the JIT from dropping the scoring
+        if (checksum == 0) {
+            System.out.println();
+        }
+        return best;
+    }
+}
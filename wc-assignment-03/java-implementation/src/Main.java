@@ -1,5 +1,8 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Suppose you have real values from somewhere:
         double age = 37.0;
         double vo2max = 50.13;
@@ -10,8 +13,27 @@ public class Main {
         // Put them in the correct order:
         double[] features = new double[] {age, vo2max, weight, sex, hr};
 
-        // Call the generated model’s score(...)
-        double prediction = Model.score(features);
+        // Call the generated model’s score(...), or an engine for a model file if one is given
+        Scorer scorer = Model::score;
+        if (args.length > 0) {
+            var ensemble = TreeEnsemble.load(Path.of(args[0]));
+            var engine = args.length > 1 ? args[1] : "tree";
+            scorer = switch (engine) {
+                case "tree" -> ensemble;
+                case "quick" -> new QuickScorer(ensemble);
+                case "perfect" -> new PerfectTreeScorer(ensemble);
+                case "region" -> new RegionCache(ensemble, new QuickScorer(ensemble), 1 << 16);
+                case "diagram" -> DecisionDiagram.compile(ensemble, 100_000);
+                case "binned" -> new BinnedForest(ensemble);
+                default -> null;
+            };
+            if (scorer == null) {
+                System.err.println("Unknown engine " + engine + ". Usage: java Main [model file"
+                        + " [tree|quick|perfect|region|diagram|binned]]");
+                System.exit(1);
+            }
+        }
+        double prediction = scorer.score(features);
 
         System.out.println("Predicted Energy Expenditure (EE): " + prediction);
     }
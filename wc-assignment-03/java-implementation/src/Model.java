@@ -1,5 +1,67 @@
 public class Model {
     public static double score(double[] input) {
+        return (tree48(input)
+                + tree49(input)
+                + tree50(input)
+                + tree51(input)
+                + tree52(input)
+                + tree53(input)
+                + tree54(input)
+                + tree55(input)
+                + tree56(input)
+                + tree57(input)
+                + tree58(input)
+                + tree59(input)
+                + tree41(input)
+                + tree42(input)
+                + tree43(input)
+                + tree44(input)
+                + tree45(input)
+                + tree46(input)
+                + tree47(input)
+                + tree34(input)
+                + tree35(input)
+                + tree36(input)
+                + tree37(input)
+                + tree38(input)
+                + tree39(input)
+                + tree40(input)
+                + tree27(input)
+                + tree28(input)
+                + tree29(input)
+                + tree30(input)
+                + tree31(input)
+                + tree32(input)
+                + tree33(input)
+                + tree20(input)
+                + tree21(input)
+                + tree22(input)
+                + tree23(input)
+                + tree24(input)
+                + tree25(input)
+                + tree26(input)
+                + tree13(input)
+                + tree14(input)
+                + tree15(input)
+                + tree16(input)
+                + tree17(input)
+                + tree18(input)
+                + tree19(input)
+                + tree6(input)
+                + tree7(input)
+                + tree8(input)
+                + tree9(input)
+                + tree10(input)
+                + tree11(input)
+                + tree12(input)
+                + tree0(input)
+                + tree1(input)
+                + tree2(input)
+                + tree3(input)
+                + tree4(input)
+                + tree5(input)) * 0.016666666666666666;
+    }
+    private static double tree0(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -510,6 +572,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree1(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -1020,6 +1085,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree2(double[] input) {
         double var2;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -1530,6 +1598,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree3(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -2040,6 +2111,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree4(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -2550,6 +2624,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree5(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -3060,9 +3137,9 @@ public class Model {
                 }
             }
         }
-        return (subroutine0(input) + var0 + var1 + var2 + var3 + var4 + var5) * 0.016666666666666666;
+        return var5;
     }
-    public static double subroutine0(double[] input) {
+    private static double tree6(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -3573,6 +3650,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree7(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -4083,6 +4163,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree8(double[] input) {
         double var2;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -4593,6 +4676,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree9(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -5103,6 +5189,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree10(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -5613,6 +5702,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree11(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -6123,6 +6215,9 @@ public class Model {
                 }
             }
         }
+        return var5;
+    }
+    private static double tree12(double[] input) {
         double var6;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -6633,9 +6728,9 @@ public class Model {
                 }
             }
         }
-        return subroutine1(input) + var0 + var1 + var2 + var3 + var4 + var5 + var6;
+        return var6;
     }
-    public static double subroutine1(double[] input) {
+    private static double tree13(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -7146,6 +7241,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree14(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 118.5) {
@@ -7656,6 +7754,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree15(double[] input) {
         double var2;
         if (input[4] <= 144.5) {
             if (input[4] <= 120.5) {
@@ -8166,6 +8267,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree16(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -8676,6 +8780,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree17(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 118.5) {
@@ -9186,6 +9293,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree18(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -9696,6 +9806,9 @@ public class Model {
                 }
             }
         }
+        return var5;
+    }
+    private static double tree19(double[] input) {
         double var6;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -10206,9 +10319,9 @@ public class Model {
                 }
             }
         }
-        return subroutine2(input) + var0 + var1 + var2 + var3 + var4 + var5 + var6;
+        return var6;
     }
-    public static double subroutine2(double[] input) {
+    private static double tree20(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -10719,6 +10832,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree21(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -11229,6 +11345,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree22(double[] input) {
         double var2;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -11739,6 +11858,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree23(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -12249,6 +12371,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree24(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -12759,6 +12884,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree25(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -13269,6 +13397,9 @@ public class Model {
                 }
             }
         }
+        return var5;
+    }
+    private static double tree26(double[] input) {
         double var6;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -13779,9 +13910,9 @@ public class Model {
                 }
             }
         }
-        return subroutine3(input) + var0 + var1 + var2 + var3 + var4 + var5 + var6;
+        return var6;
     }
-    public static double subroutine3(double[] input) {
+    private static double tree27(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -14292,6 +14423,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree28(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -14802,6 +14936,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree29(double[] input) {
         double var2;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -15312,6 +15449,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree30(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -15822,6 +15962,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree31(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -16332,6 +16475,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree32(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -16842,6 +16988,9 @@ public class Model {
                 }
             }
         }
+        return var5;
+    }
+    private static double tree33(double[] input) {
         double var6;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -17352,9 +17501,9 @@ public class Model {
                 }
             }
         }
-        return subroutine4(input) + var0 + var1 + var2 + var3 + var4 + var5 + var6;
+        return var6;
     }
-    public static double subroutine4(double[] input) {
+    private static double tree34(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -17865,6 +18014,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree35(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -18375,6 +18527,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree36(double[] input) {
         double var2;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -18885,6 +19040,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree37(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -19395,6 +19553,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree38(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 120.5) {
@@ -19905,6 +20066,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree39(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -20415,6 +20579,9 @@ public class Model {
                 }
             }
         }
+        return var5;
+    }
+    private static double tree40(double[] input) {
         double var6;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -20925,9 +21092,9 @@ public class Model {
                 }
             }
         }
-        return subroutine5(input) + var0 + var1 + var2 + var3 + var4 + var5 + var6;
+        return var6;
     }
-    public static double subroutine5(double[] input) {
+    private static double tree41(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 118.5) {
@@ -21438,6 +21605,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree42(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 120.5) {
@@ -21948,6 +22118,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree43(double[] input) {
         double var2;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -22458,6 +22631,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree44(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -22968,6 +23144,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree45(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -23478,6 +23657,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree46(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 120.5) {
@@ -23988,6 +24170,9 @@ public class Model {
                 }
             }
         }
+        return var5;
+    }
+    private static double tree47(double[] input) {
         double var6;
         if (input[4] <= 145.5) {
             if (input[4] <= 120.5) {
@@ -24498,9 +24683,9 @@ public class Model {
                 }
             }
         }
-        return subroutine6(input) + var0 + var1 + var2 + var3 + var4 + var5 + var6;
+        return var6;
     }
-    public static double subroutine6(double[] input) {
+    private static double tree48(double[] input) {
         double var0;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -25011,6 +25196,9 @@ public class Model {
                 }
             }
         }
+        return var0;
+    }
+    private static double tree49(double[] input) {
         double var1;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -25521,6 +25709,9 @@ public class Model {
                 }
             }
         }
+        return var1;
+    }
+    private static double tree50(double[] input) {
         double var2;
         if (input[4] <= 145.5) {
             if (input[4] <= 119.5) {
@@ -26031,6 +26222,9 @@ public class Model {
                 }
             }
         }
+        return var2;
+    }
+    private static double tree51(double[] input) {
         double var3;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -26541,6 +26735,9 @@ public class Model {
                 }
             }
         }
+        return var3;
+    }
+    private static double tree52(double[] input) {
         double var4;
         if (input[4] <= 144.5) {
             if (input[4] <= 120.5) {
@@ -27051,6 +27248,9 @@ public class Model {
                 }
             }
         }
+        return var4;
+    }
+    private static double tree53(double[] input) {
         double var5;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -27561,6 +27761,9 @@ public class Model {
                 }
             }
         }
+        return var5;
+    }
+    private static double tree54(double[] input) {
         double var6;
         if (input[4] <= 144.5) {
             if (input[4] <= 119.5) {
@@ -28071,6 +28274,9 @@ public class Model {
                 }
             }
         }
+        return var6;
+    }
+    private static double tree55(double[] input) {
         double var7;
         if (input[4] <= 144.5) {
             if (input[4] <= 115.5) {
@@ -28581,6 +28787,9 @@ public class Model {
                 }
             }
         }
+        return var7;
+    }
+    private static double tree56(double[] input) {
         double var8;
         if (input[4] <= 144.5) {
             if (input[4] <= 117.5) {
@@ -29091,6 +29300,9 @@ public class Model {
                 }
             }
         }
+        return var8;
+    }
+    private static double tree57(double[] input) {
         double var9;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -29601,6 +29813,9 @@ public class Model {
                 }
             }
         }
+        return var9;
+    }
+    private static double tree58(double[] input) {
         double var10;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -30111,6 +30326,9 @@ public class Model {
                 }
             }
         }
+        return var10;
+    }
+    private static double tree59(double[] input) {
         double var11;
         if (input[4] <= 144.5) {
             if (input[4] <= 116.5) {
@@ -30621,6 +30839,6 @@ public class Model {
                 }
             }
         }
-        return var0 + var1 + var2 + var3 + var4 + var5 + var6 + var7 + var8 + var9 + var10 + var11;
+        return var11;
     }
 }
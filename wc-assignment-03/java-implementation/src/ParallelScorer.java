@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scores large batches of rows on all cores. The rows are split recursively into ranges of at most
+ * {@link #TASK_ROWS} rows that the threads of a {@link ForkJoinPool} score independently, every task writing only its
+ * own range of the output, so the threads share nothing but the read-only model.
+ * <p>
+ * Inputs larger than the heap are streamed from files of raw big-endian doubles, the features of one row after the
+ * other (e.g. written by {@code numpy.ndarray.astype('>f8').tofile}). The file is mapped chunk by chunk, each chunk is
+ * scored in parallel and its predictions are written to the output file in the same format, one double per row.
+ */
+public class ParallelScorer {
+    /**
+     * The maximum number of rows scored by one task
+     */
+    public static final int TASK_ROWS = 4096;
+    /**
+     * The number of rows mapped and scored at once when scoring a file
+     */
+    public static final int CHUNK_ROWS = 1 << 20;
+
+    private final Scorer scorer;
+    private final int featureCount;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param scorer       The engine scoring the rows, used by several threads at once
+     * @param featureCount The number of features per row
+     * @param pool         The pool to score in
+     */
+    public ParallelScorer(Scorer scorer, int featureCount, ForkJoinPool pool) {
+        this.scorer = scorer;
+        this.featureCount = featureCount;
+        this.pool = pool;
+    }
+
+    /**
+     * Scores a feature matrix in row-major order
+     *
+     * @param features The matrix, {@code rows} rows of the features
+     * @param rows     The number of rows
+     * @param output   Receives the prediction of row {@code r} at index {@code r}
+     */
+    public void scoreBatch(double[] features, int rows, double[] output) {
+        if (features.length < (long) rows * featureCount || output.length < rows) {
+            throw new IllegalArgumentException("Matrix or output too small for " + rows + " rows");
+        }
+        pool.invoke(new Task(features, output, 0, rows));
+    }
+
+    /**
+     * Scores a file of rows chunk by chunk
+     *
+     * @param input  The file of features
+     * @param output The file to write the predictions to, replaced if it exists
+     * @return The number of rows scored
+     * @throws IOException If a file cannot be read or written, or the input does not hold whole rows
+     */
+    public long scoreFile(Path input, Path output) throws IOException {
+        var rowBytes = (long) featureCount * Double.BYTES;
+        try (var in = FileChannel.open(input, StandardOpenOption.READ);
+             var out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (in.size() % rowBytes != 0) {
+                throw new IOException("File does not hold whole rows of " + featureCount + " doubles: " + input);
+            }
+
+            var rows = in.size() / rowBytes;
+            var features = new double[(int) Math.min(rows, CHUNK_ROWS) * featureCount];
+            var predictions = new double[(int) Math.min(rows, CHUNK_ROWS)];
+            for (long start = 0; start < rows; start += CHUNK_ROWS) {
+                var chunk = (int) Math.min(CHUNK_ROWS, rows - start);
+                var mapped = in.map(FileChannel.MapMode.READ_ONLY, start * rowBytes, chunk * rowBytes);
+                mapped.order(ByteOrder.BIG_ENDIAN).asDoubleBuffer().get(features, 0, chunk * featureCount);
+
+                scoreBatch(features, chunk, predictions);
+
+                var result = out.map(FileChannel.MapMode.READ_WRITE, start * Double.BYTES,
+                        (long) chunk * Double.BYTES);
+                result.order(ByteOrder.BIG_ENDIAN).asDoubleBuffer().put(predictions, 0, chunk);
+            }
+            return rows;
+        }
+    }
+
+    private class Task extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient double[] features;
+        private final transient double[] output;
+        private final int from;
+        private final int to;
+
+        Task(double[] features, double[] output, int from, int to) {
+            this.features = features;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_ROWS) {
+                var middle = (from + to) >>> 1;
+                invokeAll(new Task(features, output, from, middle), new Task(features, output, middle, to));
+                return;
+            }
+
+            var row = new double[featureCount];
+            for (int r = from; r < to; r++) {
+                System.arraycopy(features, r * featureCount, row, 0, featureCount);
+                output[r] = scorer.score(row);
+            }
+        }
+    }
+
+    /**
+     * Scores a file and reports the throughput
+     * <p>
+     * Usage: {@code java ParallelScorer <model file> <features file> <predictions file> [threads]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: ParallelScorer <model file> <features file> <predictions file> [threads]");
+            System.exit(1);
+        }
+        var ensemble = TreeEnsemble.load(Path.of(args[0]));
+        var threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        var pool = new ForkJoinPool(threads);
+        try {
+            var scorer = new ParallelScorer(new QuickScorer(ensemble), ensemble.featureCount(), pool);
+            var start = System.nanoTime();
+            var rows = scorer.scoreFile(Path.of(args[1]), Path.of(args[2]));
+            var seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Scored %d rows on %d threads in %.2f s: %.0f rows/s%n", rows, threads, seconds,
+                    rows / seconds);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
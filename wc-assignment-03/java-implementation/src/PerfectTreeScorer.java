@@ -0,0 +1,222 @@
+/**
+ * Scores the forest with every tree stored as a perfect binary tree in an implicit array: the children of node
+ * {@code i} are {@code 2i+1} and {@code 2i+2}, so the next node is {@code 2i+1+(x > t)} and no child indices are
+ * stored. Leaves above the deepest level are padded with splits whose subtrees all end in that leaf, so every walk
+ * takes exactly as many steps as the deepest tree has levels (7 for the trained forest, i.e. 127 splits and 128 leaves
+ * per tree). A fixed number of steps without data-dependent branches avoids the mispredictions of the generated
+ * if/else cascade.
+ * <p>
+ * {@link #scoreBatch} walks each tree for several rows at once, so that the loads of one walk overlap with the others
+ * instead of every level waiting for the previous one. The trees are added in the same order as by
+ * {@link TreeEnsemble}, so the predictions are the same bit for bit.
+ */
+public class PerfectTreeScorer implements Scorer {
+    /**
+     * The deepest tree supported, a perfect tree of that depth has 2^depth leaves
+     */
+    public static final int MAX_DEPTH = 10;
+    /**
+     * The number of rows walked through a tree at the same time by {@link #scoreBatch}
+     */
+    public static final int INTERLEAVED_ROWS = 4;
+
+    private final double scale;
+    private final int treeCount;
+    private final int featureCount;
+    private final int depth;
+    private final int splitsPerTree;
+    private final int leavesPerTree;
+    /**
+     * Split {@code i} of tree {@code t} at {@code t * splitsPerTree + i}, its leaf {@code l} at
+     * {@code t * leavesPerTree + l}
+     */
+    private final int[] feature;
+    private final double[] threshold;
+    private final double[] leafValues;
+
+    /**
+     * @param ensemble The forest to score
+     * @throws IllegalArgumentException If a tree is deeper than {@link #MAX_DEPTH}
+     */
+    public PerfectTreeScorer(TreeEnsemble ensemble) {
+        scale = ensemble.scale();
+        treeCount = ensemble.treeCount();
+        featureCount = ensemble.featureCount();
+
+        var maxDepth = 0;
+        for (int t = 0; t < treeCount; t++) {
+            maxDepth = Math.max(maxDepth, depth(ensemble, ensemble.root(t)));
+        }
+        if (maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Trees of depth " + maxDepth + " are not supported, at most "
+                    + MAX_DEPTH);
+        }
+        depth = maxDepth;
+        leavesPerTree = 1 << depth;
+        splitsPerTree = leavesPerTree - 1;
+
+        feature = new int[treeCount * splitsPerTree];
+        threshold = new double[treeCount * splitsPerTree];
+        leafValues = new double[treeCount * leavesPerTree];
+        for (int t = 0; t < treeCount; t++) {
+            place(ensemble, ensemble.root(t), t, 0);
+        }
+    }
+
+    private static int depth(TreeEnsemble ensemble, int node) {
+        if (ensemble.isLeaf(node)) {
+            return 0;
+        }
+        return 1 + Math.max(depth(ensemble, ensemble.left(node)), depth(ensemble, ensemble.right(node)));
+    }
+
+    /**
+     * Stores a subtree of the ensemble at position {@code index} of the implicit tree, padding leaves down to the last
+     * level
+     */
+    private void place(TreeEnsemble ensemble, int node, int tree, int index) {
+        if (index >= splitsPerTree) {
+            leafValues[tree * leavesPerTree + index - splitsPerTree] = ensemble.value(node);
+            return;
+        }
+
+        var split = tree * splitsPerTree + index;
+        if (ensemble.isLeaf(node)) {
+            // Both sides end in the same leaf, so any test will do
+            feature[split] = 0;
+            threshold[split] = Double.POSITIVE_INFINITY;
+            place(ensemble, node, tree, 2 * index + 1);
+            place(ensemble, node, tree, 2 * index + 2);
+        } else {
+            feature[split] = ensemble.feature(node);
+            threshold[split] = ensemble.threshold(node);
+            place(ensemble, ensemble.left(node), tree, 2 * index + 1);
+            place(ensemble, ensemble.right(node), tree, 2 * index + 2);
+        }
+    }
+
+    // Accessors for the vectorized scorer, which walks the same layout
+
+    double scale() {
+        return scale;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    int splitsPerTree() {
+        return splitsPerTree;
+    }
+
+    int leavesPerTree() {
+        return leavesPerTree;
+    }
+
+    int treeCount() {
+        return treeCount;
+    }
+
+    int featureCount() {
+        return featureCount;
+    }
+
+    int[] features() {
+        return feature;
+    }
+
+    double[] thresholds() {
+        return threshold;
+    }
+
+    double[] leafValues() {
+        return leafValues;
+    }
+
+    @Override
+    public double score(double[] input) {
+        var sum = tree(0, input, 0, 1);
+        for (int t = 1; t < treeCount; t++) {
+            sum += tree(t, input, 0, 1);
+        }
+        return sum * scale;
+    }
+
+    private double tree(int tree, double[] features, int offset, int featureStride) {
+        var base = tree * splitsPerTree;
+        var index = 0;
+        for (int level = 0; level < depth; level++) {
+            var x = features[offset + feature[base + index] * featureStride];
+            index = 2 * index + (x <= threshold[base + index] ? 1 : 2);
+        }
+        return leafValues[tree * leavesPerTree + index - splitsPerTree];
+    }
+
+    /**
+     * Scores many rows at once, walking the trees for {@link #INTERLEAVED_ROWS} rows at the same time. The results are
+     * the same as calling {@link #score(double[])} for every row.
+     *
+     * @param features The feature matrix with {@code rows} rows of the ensemble's features
+     * @param rows     The number of rows
+     * @param layout   How the matrix is arranged in {@code features}
+     * @param output   Receives the prediction of row {@code r} at index {@code r}
+     */
+    public void scoreBatch(double[] features, int rows, TreeEnsemble.Layout layout, double[] output) {
+        if (features.length < (long) rows * featureCount || output.length < rows) {
+            throw new IllegalArgumentException("Matrix or output too small for " + rows + " rows");
+        }
+        var rowStride = layout == TreeEnsemble.Layout.ROW_MAJOR ? featureCount : 1;
+        var featureStride = layout == TreeEnsemble.Layout.ROW_MAJOR ? 1 : rows;
+
+        var r = 0;
+        for (; r + INTERLEAVED_ROWS <= rows; r += INTERLEAVED_ROWS) {
+            interleaved(features, r, rowStride, featureStride, output);
+        }
+        for (; r < rows; r++) {
+            var offset = r * rowStride;
+            var sum = tree(0, features, offset, featureStride);
+            for (int t = 1; t < treeCount; t++) {
+                sum += tree(t, features, offset, featureStride);
+            }
+            output[r] = sum * scale;
+        }
+    }
+
+    /**
+     * Scores the rows {@code row} to {@code row + 3}. Their walks through a tree are independent of each other, so the
+     * CPU overlaps their loads instead of every level waiting for the previous one.
+     */
+    private void interleaved(double[] features, int row, int rowStride, int featureStride, double[] output) {
+        var offset0 = row * rowStride;
+        var offset1 = offset0 + rowStride;
+        var offset2 = offset1 + rowStride;
+        var offset3 = offset2 + rowStride;
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        for (int tree = 0; tree < treeCount; tree++) {
+            var base = tree * splitsPerTree;
+            int i0 = 0, i1 = 0, i2 = 0, i3 = 0;
+            for (int level = 0; level < depth; level++) {
+                var x0 = features[offset0 + feature[base + i0] * featureStride];
+                var x1 = features[offset1 + feature[base + i1] * featureStride];
+                var x2 = features[offset2 + feature[base + i2] * featureStride];
+                var x3 = features[offset3 + feature[base + i3] * featureStride];
+                i0 = 2 * i0 + (x0 <= threshold[base + i0] ? 1 : 2);
+                i1 = 2 * i1 + (x1 <= threshold[base + i1] ? 1 : 2);
+                i2 = 2 * i2 + (x2 <= threshold[base + i2] ? 1 : 2);
+                i3 = 2 * i3 + (x3 <= threshold[base + i3] ? 1 : 2);
+            }
+
+            // Start with the first tree instead of 0 to add in exactly the same order as score
+            var leaves = tree * leavesPerTree - splitsPerTree;
+            sum0 = tree == 0 ? leafValues[leaves + i0] : sum0 + leafValues[leaves + i0];
+            sum1 = tree == 0 ? leafValues[leaves + i1] : sum1 + leafValues[leaves + i1];
+            sum2 = tree == 0 ? leafValues[leaves + i2] : sum2 + leafValues[leaves + i2];
+            sum3 = tree == 0 ? leafValues[leaves + i3] : sum3 + leafValues[leaves + i3];
+        }
+
+        output[row] = sum0 * scale;
+        output[row + 1] = sum1 * scale;
+        output[row + 2] = sum2 * scale;
+        output[row + 3] = sum3 * scale;
+    }
+}
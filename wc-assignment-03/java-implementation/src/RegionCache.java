@@ -0,0 +1,100 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoises predictions per decision region. Every split compares a feature with one of its thresholds, so the
+ * prediction only depends on the interval between consecutive thresholds each feature falls into. The interval indices
+ * of all features, found by binary search, are packed into one key (7 + 8 + 8 + 1 + 7 bits for the trained forest),
+ * and the prediction of a key is computed once by another scorer. Subjects report the same age, VO2max, weight and sex
+ * and a heart rate within a narrow range, so the same keys come up again and again.
+ * <p>
+ * The cache is direct-mapped: a key has exactly one slot, and a new key replaces the one there. This keeps it bounded
+ * without any bookkeeping and lets threads read and write slots without locking.
+ */
+public class RegionCache implements Scorer {
+    private record Entry(long key, double value) {
+    }
+
+    private final Scorer scorer;
+    private final double[][] thresholds;
+    private final int[] shifts;
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param ensemble The forest whose thresholds define the regions
+     * @param scorer   The scorer computing the prediction of a region the first time it is seen
+     * @param capacity The number of slots, rounded up to a power of two
+     * @throws IllegalArgumentException If the interval indices of all features do not fit in 63 bits
+     */
+    public RegionCache(TreeEnsemble ensemble, Scorer scorer, int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        this.scorer = scorer;
+
+        var featureCount = ensemble.featureCount();
+        thresholds = new double[featureCount][];
+        shifts = new int[featureCount];
+        var bits = 0;
+        for (int f = 0; f < featureCount; f++) {
+            thresholds[f] = ensemble.thresholds(f);
+            shifts[f] = bits;
+            // Indices 0 to thresholds.length
+            bits += Integer.SIZE - Integer.numberOfLeadingZeros(thresholds[f].length);
+        }
+        if (bits >= Long.SIZE) {
+            throw new IllegalArgumentException("Region keys need " + bits + " bits, at most 63 are supported");
+        }
+
+        var slots = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        entries = new AtomicReferenceArray<>(slots);
+        mask = slots - 1;
+    }
+
+    /**
+     * @param input The features of one row
+     * @return The interval indices of all features packed into one key
+     */
+    public long key(double[] input) {
+        var key = 0L;
+        for (int f = 0; f < thresholds.length; f++) {
+            key |= (long) TreeEnsemble.interval(thresholds[f], input[f]) << shifts[f];
+        }
+        return key;
+    }
+
+    @Override
+    public double score(double[] input) {
+        var key = key(input);
+        // Spread the keys over the slots, neighbouring regions only differ in a few low bits
+        var slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+
+        var entry = entries.getAcquire(slot);
+        if (entry != null && entry.key() == key) {
+            hits.increment();
+            return entry.value();
+        }
+
+        misses.increment();
+        var value = scorer.score(input);
+        entries.setRelease(slot, new Entry(key, value));
+        return value;
+    }
+
+    /**
+     * @return The number of predictions answered from the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of predictions that had to be computed
+     */
+    public long misses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * An engine predicting the energy expenditure from the features age, VO2max, weight, sex and HR, in this order. All
+ * engines return exactly the same values as {@link Model#score(double[])}.
+ */
+public interface Scorer {
+    /**
+     * @param input The features of one row
+     * @return The predicted energy expenditure
+     */
+    double score(double[] input);
+}
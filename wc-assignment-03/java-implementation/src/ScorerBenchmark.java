@@ -0,0 +1,108 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the latency of the scoring engines on random rows in the ranges of the training data and checks that they
+ * predict the same values as {@link Model}. A simple timed loop with warm-up rounds, the module has no build tool to
+ * run JMH with.
+ * <p>
+ * Usage: {@code java ScorerBenchmark [model file] [rows]}
+ */
+public class ScorerBenchmark {
+    private static final int ROUNDS = 10;
+    private static final int WARM_UP_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        var ensemble = TreeEnsemble.load(Path.of(args.length > 0 ? args[0] : "model.trees"));
+        var rows = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        var features = randomRows(rows, ensemble.featureCount());
+
+        Map<String, Scorer> scorers = Map.of(
+                "model", Model::score,
+                "tree-ensemble", ensemble,
+                "quick-scorer", new QuickScorer(ensemble),
+                "perfect-tree", new PerfectTreeScorer(ensemble),
+                "binned", new BinnedForest(ensemble));
+
+        var expected = new double[rows];
+        for (int r = 0; r < rows; r++) {
+            expected[r] = Model.score(features[r]);
+        }
+        for (var entry : scorers.entrySet()) {
+            var scorer = entry.getValue();
+            for (int r = 0; r < rows; r++) {
+                if (Double.compare(scorer.score(features[r]), expected[r]) != 0) {
+                    throw new IllegalStateException(entry.getKey() + " differs from Model in row " + r);
+                }
+            }
+        }
+
+        System.out.println("One row at a time:");
+        for (var entry : scorers.entrySet()) {
+            var best = Double.MAX_VALUE;
+            var checksum = 0.0;
+            for (int round = 0; round < ROUNDS; round++) {
+                var start = System.nanoTime();
+                for (double[] row : features) {
+                    checksum += entry.getValue().score(row);
+                }
+                var nanosPerRow = (double) (System.nanoTime() - start) / rows;
+                if (round >= WARM_UP_ROUNDS) {
+                    best = Math.min(best, nanosPerRow);
+                }
+            }
+            System.out.printf("%-14s %8.1f ns/row (checksum %.3f)%n", entry.getKey(), best, checksum);
+        }
+
+        var matrix = new double[rows * ensemble.featureCount()];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(features[r], 0, matrix, r * ensemble.featureCount(), ensemble.featureCount());
+        }
+        var perfectTree = new PerfectTreeScorer(ensemble);
+        var binned = new BinnedForest(ensemble);
+        var bins = new byte[matrix.length];
+        binned.binBatch(matrix, rows, bins);
+        Map<String, BatchScorer> batchScorers = Map.of(
+                "tree-ensemble", (m, n, output) -> ensemble.scoreBatch(m, n, TreeEnsemble.Layout.ROW_MAJOR, output),
+                "perfect-tree", (m, n, output) -> perfectTree.scoreBatch(m, n, TreeEnsemble.Layout.ROW_MAJOR, output),
+                "binned", (m, n, output) -> binned.scoreBatch(bins, n, output));
+
+        System.out.println("Row-major matrix, binned once beforehand for binned:");
+        var output = new double[rows];
+        for (var entry : batchScorers.entrySet()) {
+            var best = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                var start = System.nanoTime();
+                entry.getValue().scoreBatch(matrix, rows, output);
+                var nanosPerRow = (double) (System.nanoTime() - start) / rows;
+                if (round >= WARM_UP_ROUNDS) {
+                    best = Math.min(best, nanosPerRow);
+                }
+            }
+            if (!Arrays.equals(output, expected)) {
+                throw new IllegalStateException(entry.getKey() + " differs from Model");
+            }
+            System.out.printf("%-14s %8.1f ns/row%n", entry.getKey(), best);
+        }
+    }
+
+    private interface BatchScorer {
+        void scoreBatch(double[] features, int rows, double[] output);
+    }
+
+    private static double[][] randomRows(int rows, int featureCount) {
+        var random = new Random(42);
+        var features = new double[rows][featureCount];
+        for (double[] row : features) {
+            row[0] = 18 + random.nextInt(45);
+            row[1] = 30 + random.nextDouble() * 40;
+            row[2] = 50 + random.nextDouble() * 50;
+            row[3] = random.nextInt(2);
+            row[4] = 60 + random.nextDouble() * 130;
+        }
+        return features;
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * The forest specialised for one subject, whose age, VO2max, weight and sex are fixed so that the prediction only
+ * depends on the heart rate. Every split compares with {@code <=}, so the prediction is constant between two
+ * consecutive HR thresholds of the forest. The table holds these breakpoints and the prediction of each interval,
+ * evaluated once with the full forest at a heart rate inside the interval, and a prediction is one binary search.
+ * Adjacent intervals with the same prediction are merged. The values are the ones {@link Model#score(double[])}
+ * returns for the same features, bit for bit.
+ */
+public class SubjectTable {
+    /**
+     * The index of the heart rate in the features
+     */
+    public static final int HR = 4;
+
+    private final double[] features;
+    private final double[] breakpoints;
+    private final double[] values;
+
+    private SubjectTable(double[] features, double[] breakpoints, double[] values) {
+        this.features = features;
+        this.breakpoints = breakpoints;
+        this.values = values;
+    }
+
+    /**
+     * Evaluates the forest for every HR interval of a subject
+     *
+     * @param ensemble The forest
+     * @param features The features of the subject, the heart rate is ignored
+     * @return The table of the subject
+     */
+    public static SubjectTable of(TreeEnsemble ensemble, double[] features) {
+        var input = features.clone();
+        var thresholds = ensemble.thresholds(HR);
+        var breakpoints = new double[thresholds.length];
+        var values = new double[thresholds.length + 1];
+        var count = 0;
+        for (int i = 0; i <= thresholds.length; i++) {
+            // A threshold belongs to the interval it closes, the last interval is everything above the last threshold
+            if (i < thresholds.length) {
+                input[HR] = thresholds[i];
+            } else if (thresholds.length > 0) {
+                input[HR] = Math.nextUp(thresholds[thresholds.length - 1]);
+            }
+            var value = ensemble.score(input);
+            if (count == 0 || Double.compare(values[count - 1], value) != 0) {
+                if (count > 0) {
+                    breakpoints[count - 1] = thresholds[i - 1];
+                }
+                values[count++] = value;
+            }
+        }
+
+        input[HR] = 0;
+        return new SubjectTable(input, Arrays.copyOf(breakpoints, count - 1), Arrays.copyOf(values, count));
+    }
+
+    /**
+     * @param hr The heart rate
+     * @return The predicted energy expenditure of the subject at that heart rate
+     */
+    public double score(double hr) {
+        return values[TreeEnsemble.interval(breakpoints, hr)];
+    }
+
+    /**
+     * @param features Features of a subject, the heart rate is ignored
+     * @return Whether the table was built for these features
+     */
+    public boolean matches(double[] features) {
+        if (features.length != this.features.length) {
+            return false;
+        }
+        for (int i = 0; i < features.length; i++) {
+            if (i != HR && Double.compare(features[i], this.features[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of intervals with distinct predictions
+     */
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the {@link SubjectTable}s of the most recently scored subjects, evicting the least recently used one once the
+ * capacity is reached. A table is rebuilt if the features of its subject changed, e.g. after a new weight was entered.
+ * The cache may be used by several threads, tables are built outside the lock.
+ */
+public class SubjectTableCache {
+    private final TreeEnsemble ensemble;
+    private final Map<String, SubjectTable> tables;
+
+    /**
+     * @param ensemble The forest to specialise
+     * @param capacity The maximum number of subjects whose tables are kept
+     */
+    public SubjectTableCache(TreeEnsemble ensemble, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.ensemble = ensemble;
+        this.tables = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SubjectTable> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param subject  The id of the subject
+     * @param features The features of the subject, the heart rate is ignored
+     * @return The table of the subject
+     */
+    public SubjectTable table(String subject, double[] features) {
+        SubjectTable table;
+        synchronized (tables) {
+            table = tables.get(subject);
+        }
+        if (table != null && table.matches(features)) {
+            return table;
+        }
+
+        table = SubjectTable.of(ensemble, features);
+        synchronized (tables) {
+            tables.put(subject, table);
+        }
+        return table;
+    }
+
+    /**
+     * Predicts the energy expenditure of a subject from its table
+     *
+     * @param subject The id of the subject
+     * @param input   The features of the subject including the current heart rate
+     * @return The same value as {@link Model#score(double[])} for the features
+     */
+    public double score(String subject, double[] input) {
+        return table(subject, input).score(input[SubjectTable.HR]);
+    }
+
+    /**
+     * @return The number of subjects whose tables are kept
+     */
+    public int size() {
+        synchronized (tables) {
+            return tables.size();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Random forest loaded from a model file instead of being compiled into {@link Model}, so that a new model can be
+ * deployed without a build. All nodes of all trees are stored in a few primitive arrays; a node is a leaf if its
+ * feature index is -1. The model file is written by {@code java_export.py ensemble} from the generated
+ * {@code Model.java} and keeps its order of the trees, so {@link #score(double[])} returns exactly the same values as
+ * {@link Model#score(double[])}.
+ */
+public class TreeEnsemble implements Scorer {
+    /**
+     * How the values of a feature matrix are arranged in its array
+     */
+    public enum Layout {
+        /**
+         * The features of a row are consecutive, feature {@code f} of row {@code r} is at {@code r * features + f}
+         */
+        ROW_MAJOR,
+        /**
+         * The values of a feature are consecutive, feature {@code f} of row {@code r} is at {@code f * rows + r}
+         */
+        COLUMN_MAJOR
+    }
+
+    /**
+     * Rows scored per tree before moving on to the next tree, small enough that their inputs and outputs stay in cache
+     */
+    private static final int BLOCK_ROWS = 1024;
+    private static final int MAGIC = 0x57435446; // "WCTF"
+    private static final int VERSION = 1;
+
+    private final int featureCount;
+    private final double scale;
+    private final int[] roots;
+    private final int[] feature;
+    private final double[] threshold;
+    /**
+     * The left child of node {@code i} at {@code 2 * i}, the right one at {@code 2 * i + 1}, so that the next node is
+     * selected by index arithmetic instead of a hard to predict branch
+     */
+    private final int[] children;
+    private final double[] value;
+
+    private TreeEnsemble(int featureCount, double scale, int[] roots, int[] feature, double[] threshold,
+                         int[] children, double[] value) {
+        this.featureCount = featureCount;
+        this.scale = scale;
+        this.roots = roots;
+        this.feature = feature;
+        this.threshold = threshold;
+        this.children = children;
+        this.value = value;
+    }
+
+    public static TreeEnsemble load(Path file) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            return load(in);
+        }
+    }
+
+    public static TreeEnsemble load(InputStream stream) throws IOException {
+        var in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a tree ensemble");
+        }
+        var version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported tree ensemble version " + version);
+        }
+
+        var featureCount = in.readInt();
+        var treeCount = in.readInt();
+        var nodeCount = in.readInt();
+        var scale = in.readDouble();
+        var roots = readInts(in, treeCount);
+        var feature = readInts(in, nodeCount);
+        var threshold = readDoubles(in, nodeCount);
+        var left = readInts(in, nodeCount);
+        var right = readInts(in, nodeCount);
+        var value = readDoubles(in, nodeCount);
+
+        // Children must follow their parent, otherwise a corrupt file could make scoring loop forever
+        for (int root : roots) {
+            if (root < 0 || root >= nodeCount) {
+                throw new IOException("Invalid root " + root);
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            var isSplit = feature[node] >= 0;
+            if (feature[node] >= featureCount
+                    || isSplit && !(isChild(left[node], node, nodeCount) && isChild(right[node], node, nodeCount))) {
+                throw new IOException("Invalid node " + node);
+            }
+        }
+
+        var children = new int[2 * nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            children[2 * node] = left[node];
+            children[2 * node + 1] = right[node];
+        }
+
+        return new TreeEnsemble(featureCount, scale, roots, feature, threshold, children, value);
+    }
+
+    private static boolean isChild(int child, int parent, int nodeCount) {
+        return child > parent && child < nodeCount;
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        var values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(DataInputStream in, int count) throws IOException {
+        var values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    @Override
+    public double score(double[] input) {
+        // Summed in the same order as Model.score, floating point addition is not associative
+        var sum = tree(roots[0], input);
+        for (int t = 1; t < roots.length; t++) {
+            sum += tree(roots[t], input);
+        }
+        return sum * scale;
+    }
+
+    /**
+     * Scores many rows at once. Instead of walking all trees for one row after the other, every tree is walked for a
+     * block of rows before the next tree, so that the nodes of one tree stay in cache while they are used. The results
+     * are the same as calling {@link #score(double[])} for every row.
+     *
+     * @param features The feature matrix with {@code rows} rows of {@link #featureCount()} features
+     * @param rows     The number of rows
+     * @param layout   How the matrix is arranged in {@code features}
+     * @param output   Receives the prediction of row {@code r} at index {@code r}
+     */
+    public void scoreBatch(double[] features, int rows, Layout layout, double[] output) {
+        if (features.length < (long) rows * featureCount || output.length < rows) {
+            throw new IllegalArgumentException("Matrix or output too small for " + rows + " rows");
+        }
+        var rowStride = layout == Layout.ROW_MAJOR ? featureCount : 1;
+        var featureStride = layout == Layout.ROW_MAJOR ? 1 : rows;
+
+        for (int start = 0; start < rows; start += BLOCK_ROWS) {
+            var end = Math.min(start + BLOCK_ROWS, rows);
+            for (int r = start; r < end; r++) {
+                output[r] = tree(roots[0], features, r * rowStride, featureStride);
+            }
+            for (int t = 1; t < roots.length; t++) {
+                var root = roots[t];
+                for (int r = start; r < end; r++) {
+                    output[r] += tree(root, features, r * rowStride, featureStride);
+                }
+            }
+            for (int r = start; r < end; r++) {
+                output[r] *= scale;
+            }
+        }
+    }
+
+    private double tree(int node, double[] features, int offset, int featureStride) {
+        while (feature[node] >= 0) {
+            var x = features[offset + feature[node] * featureStride];
+            node = children[2 * node + (x <= threshold[node] ? 0 : 1)];
+        }
+        return value[node];
+    }
+
+    /**
+     * @return The leaf value of a single tree for the row, without scaling
+     */
+    double treeScore(int tree, double[] input) {
+        return tree(roots[tree], input);
+    }
+
+    private double tree(int node, double[] input) {
+        while (feature[node] >= 0) {
+            node = children[2 * node + (input[feature[node]] <= threshold[node] ? 0 : 1)];
+        }
+        return value[node];
+    }
+
+    public int featureCount() {
+        return featureCount;
+    }
+
+    public int treeCount() {
+        return roots.length;
+    }
+
+    public int nodeCount() {
+        return feature.length;
+    }
+
+    /**
+     * @param feature The index of a feature
+     * @return The distinct thresholds the feature is compared with in ascending order
+     */
+    public double[] thresholds(int feature) {
+        var count = 0;
+        var values = new double[this.feature.length];
+        for (int node = 0; node < values.length; node++) {
+            if (this.feature[node] == feature) {
+                values[count++] = threshold[node];
+            }
+        }
+        return Arrays.stream(values, 0, count).sorted().distinct().toArray();
+    }
+
+    /**
+     * Every split compares with {@code <=}, so all values of a feature between two consecutive thresholds take the
+     * same paths through the trees
+     *
+     * @param thresholds The distinct thresholds of a feature in ascending order
+     * @param x          The value of the feature
+     * @return The number of thresholds {@code t} for which {@code x <= t} is false, all of them for NaN
+     */
+    static int interval(double[] thresholds, double x) {
+        var lo = 0;
+        var hi = thresholds.length;
+        while (lo < hi) {
+            var mid = (lo + hi) >>> 1;
+            if (x <= thresholds[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    // Node accessors for the scorers that compile the ensemble into their own representation
+
+    double scale() {
+        return scale;
+    }
+
+    int root(int tree) {
+        return roots[tree];
+    }
+
+    boolean isLeaf(int node) {
+        return feature[node] < 0;
+    }
+
+    int feature(int node) {
+        return feature[node];
+    }
+
+    double threshold(int node) {
+        return threshold[node];
+    }
+
+    int left(int node) {
+        return children[2 * node];
+    }
+
+    int right(int node) {
+        return children[2 * node + 1];
+    }
+
+    double value(int node) {
+        return value[node];
+    }
+}
@@ -0,0 +1,171 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Scores many rows at once with SIMD instructions, walking one tree for as many rows as a vector of doubles has lanes
+ * (8 with AVX-512, 4 with AVX2). The trees are stored in the perfect layout of {@link PerfectTreeScorer}, so every walk
+ * takes exactly the same number of levels and all lanes stay in step: per level, the features and thresholds of each
+ * lane's node are gathered, the lanes compare them at once and the node indices advance by {@code 2i+1+(x > t)}. The
+ * leaves of the lanes are gathered and added to one sum per lane, in the same order of the trees as by
+ * {@link TreeEnsemble}, so the predictions are the same as those of {@link Model#score(double[])} bit for bit.
+ * <p>
+ * The Vector API is an incubator module of Java 21, so this class lives in its own source directory, compiled and run
+ * with {@code --add-modules jdk.incubator.vector}, and the other engines build without it. It is an experiment: on
+ * JDK 21 the gathers are slower than the scalar walk of {@link PerfectTreeScorer}, also when several vectors of rows
+ * are walked per tree or the features are blended from preloaded columns instead of gathered.
+ */
+public class VectorScorer implements Scorer {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    /**
+     * Integers with as many lanes as {@link #DOUBLES}, for the node indices and features
+     */
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+
+    private final PerfectTreeScorer trees;
+    private final int depth;
+    private final int splitsPerTree;
+    private final int leavesPerTree;
+    private final int treeCount;
+    private final int featureCount;
+    private final double[] feature;
+    private final double[] threshold;
+    private final double[] leafValues;
+
+    /**
+     * @param ensemble The forest to score
+     */
+    public VectorScorer(TreeEnsemble ensemble) {
+        trees = new PerfectTreeScorer(ensemble);
+        depth = trees.depth();
+        splitsPerTree = trees.splitsPerTree();
+        leavesPerTree = trees.leavesPerTree();
+        treeCount = trees.treeCount();
+        featureCount = trees.featureCount();
+        feature = Arrays.stream(trees.features()).asDoubleStream().toArray();
+        threshold = trees.thresholds();
+        leafValues = trees.leafValues();
+    }
+
+    /**
+     * @return The number of rows walked at once
+     */
+    public static int lanes() {
+        return DOUBLES.length();
+    }
+
+    /**
+     * A single row cannot fill the lanes, it is walked by {@link PerfectTreeScorer}
+     */
+    @Override
+    public double score(double[] input) {
+        return trees.score(input);
+    }
+
+    /**
+     * Scores many rows at once. The results are the same as calling {@link #score(double[])} for every row.
+     *
+     * @param features The feature matrix with {@code rows} rows of the ensemble's features
+     * @param rows     The number of rows
+     * @param layout   How the matrix is arranged in {@code features}
+     * @param output   Receives the prediction of row {@code r} at index {@code r}
+     */
+    public void scoreBatch(double[] features, int rows, TreeEnsemble.Layout layout, double[] output) {
+        if (features.length < (long) rows * featureCount || output.length < rows) {
+            throw new IllegalArgumentException("Matrix or output too small for " + rows + " rows");
+        }
+        var rowStride = layout == TreeEnsemble.Layout.ROW_MAJOR ? featureCount : 1;
+        var featureStride = layout == TreeEnsemble.Layout.ROW_MAJOR ? 1 : rows;
+        var lanes = DOUBLES.length();
+
+        // Gathers take their indices from int arrays
+        var nodes = new int[lanes];
+        var positions = new int[lanes];
+        var laneRows = IntVector.zero(INTS).addIndex(1);
+        var r = 0;
+        for (; r + lanes <= rows; r += lanes) {
+            var rowOffsets = laneRows.add(r).mul(rowStride);
+            var sum = DoubleVector.zero(DOUBLES);
+            for (int t = 0; t < treeCount; t++) {
+                var base = t * splitsPerTree;
+                var index = IntVector.zero(INTS);
+                for (int level = 0; level < depth; level++) {
+                    index.intoArray(nodes, 0);
+                    // Features are gathered as doubles, gathering ints crashed C2 on JDK 21.0.1 with AVX-512
+                    var nodeFeatures = (IntVector) DoubleVector.fromArray(DOUBLES, feature, base, nodes, 0)
+                            .convertShape(VectorOperators.D2I, INTS, 0);
+                    var nodeThresholds = DoubleVector.fromArray(DOUBLES, threshold, base, nodes, 0);
+                    rowOffsets.add(nodeFeatures.mul(featureStride)).intoArray(positions, 0);
+                    var x = DoubleVector.fromArray(DOUBLES, features, 0, positions, 0);
+                    var isTrue = x.compare(VectorOperators.LE, nodeThresholds).cast(INTS);
+                    // 2i+2 for the right child, one less where the test is true
+                    index = index.mul(2).add(2).sub(1, isTrue);
+                }
+
+                index.intoArray(nodes, 0);
+                var leaves = DoubleVector.fromArray(DOUBLES, leafValues, t * leavesPerTree - splitsPerTree, nodes, 0);
+                // Start with the first tree instead of 0 to add in exactly the same order as score
+                sum = t == 0 ? leaves : sum.add(leaves);
+            }
+            sum.mul(trees.scale()).intoArray(output, r);
+        }
+
+        if (r < rows) {
+            // The rows that do not fill the lanes
+            var input = new double[featureCount];
+            for (; r < rows; r++) {
+                for (int f = 0; f < featureCount; f++) {
+                    input[f] = features[r * rowStride + f * featureStride];
+                }
+                output[r] = trees.score(input);
+            }
+        }
+    }
+
+    /**
+     * Compares the throughput with {@link PerfectTreeScorer} on random rows and checks that both predict the same
+     * values
+     * <p>
+     * Usage: {@code java --add-modules jdk.incubator.vector -cp out VectorScorer [model file] [rows]}
+     */
+    public static void main(String[] args) throws IOException {
+        var ensemble = TreeEnsemble.load(Path.of(args.length > 0 ? args[0] : "model.trees"));
+        var rows = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        var features = new double[rows * ensemble.featureCount()];
+        var random = new Random(42);
+        for (int r = 0; r < rows; r++) {
+            var row = r * ensemble.featureCount();
+            features[row] = 18 + random.nextInt(45);
+            features[row + 1] = 30 + random.nextDouble() * 40;
+            features[row + 2] = 50 + random.nextDouble() * 50;
+            features[row + 3] = random.nextInt(2);
+            features[row + 4] = 60 + random.nextDouble() * 130;
+        }
+
+        var vector = new VectorScorer(ensemble);
+        var perfectTree = new PerfectTreeScorer(ensemble);
+        var expected = new double[rows];
+        var output = new double[rows];
+        System.out.println(lanes() + " lanes");
+        for (int round = 0; round < 10; round++) {
+            var start = System.nanoTime();
+            perfectTree.scoreBatch(features, rows, TreeEnsemble.Layout.ROW_MAJOR, expected);
+            var middle = System.nanoTime();
+            vector.scoreBatch(features, rows, TreeEnsemble.Layout.ROW_MAJOR, output);
+            var end = System.nanoTime();
+            if (!Arrays.equals(output, expected)) {
+                throw new IllegalStateException("Vectorized predictions differ");
+            }
+            System.out.printf("perfect-tree %7.1f ns/row, vector %7.1f ns/row%n", (double) (middle - start) / rows,
+                    (double) (end - middle) / rows);
+        }
+    }
+}
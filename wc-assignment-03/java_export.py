@@ -0,0 +1,165 @@
+import re
+import struct
+
+__METHOD = re.compile(r"^    public static double (\w+)\(double\[\] input\) \{$")
+__DECLARATION = re.compile(r"^        double var(\d+);$")
+__RETURN = re.compile(r"^        return (.*);$")
+__TERM = re.compile(r"(subroutine\d+)\(input\)|var(\d+)")
+__FACTOR = re.compile(r"^\((.*)\) \* (.+)$")
+__TREE_METHOD = re.compile(r"^    private static double tree(\d+)\(double\[\] input\) \{$")
+__TREE_CALL = re.compile(r"tree(\d+)\(input\)")
+__SCALE = re.compile(r"\) \* (.+);$")
+__SPLIT = re.compile(r"^ *if \(input\[(\d+)\] <= (.+)\) \{$")
+__LEAF = re.compile(r"^ *var\d+ = (.+);$")
+__ELSE = re.compile(r"^ *} else \{$")
+__CLOSE = re.compile(r"^ *}$")
+
+ENSEMBLE_MAGIC = 0x57435446  # "WCTF"
+ENSEMBLE_VERSION = 1
+
+
+def __parse_methods(java_code: str) -> dict:
+    """Splits the code generated by m2cgen into its methods, each a list of tree bodies and the return expression"""
+    methods = {}
+    name = None
+    tree = None
+    for line in java_code.splitlines():
+        method = __METHOD.match(line)
+        if method:
+            name = method.group(1)
+            methods[name] = {"trees": [], "return": None}
+            continue
+        if name is None:
+            continue
+
+        declaration = __DECLARATION.match(line)
+        returned = __RETURN.match(line)
+        if declaration:
+            tree = []
+            methods[name]["trees"].append((int(declaration.group(1)), tree))
+        elif returned:
+            methods[name]["return"] = returned.group(1)
+            name = None
+        elif tree is not None:
+            tree.append(line)
+
+    return methods
+
+
+def split_trees(java_code: str) -> str:
+    """
+    Rewrites the code generated by m2cgen for a random forest into one method per tree and a driver that sums them up.
+    m2cgen nests the trees into a few methods of several thousand lines each, which exceed HotSpot's limit for JIT
+    compilation and therefore always run in the interpreter. The driver adds the trees in the same order as the nested
+    code did, so that the predictions stay the same bit for bit.
+    """
+    methods = __parse_methods(java_code)
+
+    # Trees are numbered in the order they appear, which is the order of the estimators
+    tree_numbers = {}
+    bodies = []
+    for name, method in methods.items():
+        for var, body in method["trees"]:
+            tree_numbers[(name, var)] = len(bodies)
+            bodies.append((var, body))
+
+    def summands(name: str) -> list:
+        terms = []
+        for subroutine, var in __TERM.findall(methods[name]["return"]):
+            terms += summands(subroutine) if subroutine else [tree_numbers[(name, int(var))]]
+        return terms
+
+    factor = __FACTOR.match(methods["score"]["return"])
+    calls = "\n                + ".join(f"tree{number}(input)" for number in summands("score"))
+
+    lines = ["public class Model {",
+             "    public static double score(double[] input) {",
+             f"        return ({calls}) * {factor.group(2)};" if factor else f"        return {calls};",
+             "    }"]
+    for number, (var, body) in enumerate(bodies):
+        lines.append(f"    private static double tree{number}(double[] input) {{")
+        lines.append(f"        double var{var};")
+        lines += body
+        lines.append(f"        return var{var};")
+        lines.append("    }")
+    lines.append("}")
+
+    return "\n".join(lines) + "\n"
+
+
+def __parse_tree(lines: list, position: int, nodes: dict) -> tuple:
+    """Appends the nodes of the subtree starting at the given line in pre-order, returns its index and the next line"""
+    index = len(nodes["feature"])
+    for column in nodes.values():
+        column.append(0)
+
+    leaf = __LEAF.match(lines[position])
+    if leaf:
+        nodes["feature"][index] = -1
+        nodes["value"][index] = float(leaf.group(1))
+        return index, position + 1
+
+    split = __SPLIT.match(lines[position])
+    if not split:
+        raise ValueError(f"Unexpected line in tree: {lines[position]}")
+    nodes["feature"][index] = int(split.group(1))
+    nodes["threshold"][index] = float(split.group(2))
+    nodes["left"][index], position = __parse_tree(lines, position + 1, nodes)
+    if not __ELSE.match(lines[position]):
+        raise ValueError(f"Expected else, got: {lines[position]}")
+    nodes["right"][index], position = __parse_tree(lines, position + 1, nodes)
+    if not __CLOSE.match(lines[position]):
+        raise ValueError(f"Expected end of block, got: {lines[position]}")
+
+    return index, position + 1
+
+
+def export_ensemble(java_code: str, path: str):
+    """
+    Writes the forest of a Model.java rewritten by split_trees to the binary file that TreeEnsemble loads. Trees are
+    stored in the order the score method adds them, so that TreeEnsemble predicts exactly the same values.
+
+    Format, big-endian: magic "WCTF", version, number of features, number of trees, number of nodes, the factor the sum
+    of the trees is multiplied with, the root node of every tree, and then one array per node attribute: feature index
+    (-1 for leaves), threshold, left child, right child and leaf value.
+    """
+    lines = java_code.splitlines()
+    score_end = next(i for i, line in enumerate(lines) if __SCALE.search(line))
+    order = [int(number) for line in lines[:score_end + 1] for number in __TREE_CALL.findall(line)]
+    scale = float(__SCALE.search(lines[score_end]).group(1))
+
+    nodes = {"feature": [], "threshold": [], "left": [], "right": [], "value": []}
+    roots = {}
+    for i, line in enumerate(lines):
+        method = __TREE_METHOD.match(line)
+        if method:
+            # Skip the declaration of the variable the tree assigns
+            roots[int(method.group(1))], _ = __parse_tree(lines, i + 2, nodes)
+
+    count = len(nodes["feature"])
+    features = max(nodes["feature"]) + 1
+    with open(path, "wb") as f:
+        f.write(struct.pack(">iiiiid", ENSEMBLE_MAGIC, ENSEMBLE_VERSION, features, len(order), count, scale))
+        f.write(struct.pack(f">{len(order)}i", *[roots[number] for number in order]))
+        f.write(struct.pack(f">{count}i", *nodes["feature"]))
+        f.write(struct.pack(f">{count}d", *nodes["threshold"]))
+        f.write(struct.pack(f">{count}i", *nodes["left"]))
+        f.write(struct.pack(f">{count}i", *nodes["right"]))
+        f.write(struct.pack(f">{count}d", *nodes["value"]))
+
+
+if __name__ == "__main__":
+    import sys
+
+    usage = "Usage: java_export.py split <Model.java> | java_export.py ensemble <Model.java> <output>"
+    if len(sys.argv) == 3 and sys.argv[1] == "split":
+        with open(sys.argv[2]) as f:
+            code = f.read()
+        with open(sys.argv[2], "w") as f:
+            f.write(split_trees(code))
+    elif len(sys.argv) == 4 and sys.argv[1] == "ensemble":
+        with open(sys.argv[2]) as f:
+            code = f.read()
+        export_ensemble(code, sys.argv[3])
+    else:
+        sys.exit(usage)
@@ -10,8 +10,11 @@ from sklearn.linear_model import LinearRegression
 from sklearn.metrics import mean_squared_error
 from sklearn.model_selection import train_test_split, GridSearchCV
 
+import java_export
+
 model_name = "random_forest_model.joblib"
 java_out_file = "./java-implementation/src/Model.java"
+model_out_file = "./java-implementation/model.trees"
 
 def __load_dataframe() -> DataFrame:
     subject_df = pd.read_csv('data/subject-info.csv')
@@ -139,11 +142,13 @@ def __random_forest(x_train, x_test, y_train, y_test, title):
 
 def __save_to_java():
     best_rf = load(model_name)
-    java_code = m2cgen.export_to_java(best_rf)
+    java_code = java_export.split_trees(m2cgen.export_to_java(best_rf))
     with open(java_out_file, "w") as f:
         f.write(java_code)
+    java_export.export_ensemble(java_code, model_out_file)
 
     print("Java code has been generated in '", java_out_file, "'.")
+    print("Model file has been generated in '", model_out_file, "'.")
 
 if __name__ == "__main__":
     df = __load_dataframe()